@@ -0,0 +1,89 @@
+package com.example.restaurantfinder.benchmark;
+
+import com.example.restaurantfinder.algorithm.AlgorithmPipeline;
+import com.example.restaurantfinder.algorithm.RestaurantSnapshot;
+import com.example.restaurantfinder.dtomodel.RestaurantDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Deterministic test data shared by all benchmarks.
+ */
+public final class BenchmarkData {
+
+    // Copenhagen area coordinates for realistic test data
+    public static final double BASE_LAT = 55.6761;
+    public static final double BASE_LNG = 12.5683;
+    private static final double COORD_RANGE = 0.5;
+
+    private static final String[] NAMES = {
+            "Pizza Place", "Sushi Bar", "Burger Joint", "Taco Stand",
+            "Italian Bistro", "French Cafe", "Thai Restaurant", "Chinese Wok",
+            "Indian Curry House", "Greek Taverna", "Mexican Cantina", "Steakhouse"
+    };
+
+    private BenchmarkData() {
+    }
+
+    public static List<RestaurantDto> restaurants(int count) {
+        Random random = new Random(42);
+        List<RestaurantDto> restaurants = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            String name = NAMES[i % NAMES.length] + " #" + i;
+            String address = "Street " + i + ", Copenhagen";
+            double rating = Math.round((1.0 + random.nextDouble() * 4.0) * 10) / 10.0;
+            double lat = BASE_LAT + (random.nextDouble() - 0.5) * COORD_RANGE;
+            double lng = BASE_LNG + (random.nextDouble() - 0.5) * COORD_RANGE;
+            int priceLevel = 1 + random.nextInt(4);
+            String postNummer = String.format("%04d", 2000 + random.nextInt(1000));
+
+            restaurants.add(new RestaurantDto((long) i, name, address, rating, lat, lng, priceLevel, postNummer));
+        }
+        return restaurants;
+    }
+
+    public static Comparator<RestaurantDto> comparator(String name) {
+        return switch (name) {
+            case "rating" -> AlgorithmPipeline.RestaurantComparators.byRating();
+            case "price" -> AlgorithmPipeline.RestaurantComparators.byPrice();
+            case "distance" -> AlgorithmPipeline.RestaurantComparators.byDistance(BASE_LAT, BASE_LNG);
+            case "weighted" -> AlgorithmPipeline.RestaurantComparators.weighted(BASE_LAT, BASE_LNG);
+            default -> throw new IllegalArgumentException("Unknown comparator: " + name);
+        };
+    }
+
+    public static AlgorithmPipeline.RowComparator rowComparator(String name, RestaurantSnapshot snapshot) {
+        return switch (name) {
+            case "rating" -> AlgorithmPipeline.RowComparators.byRating(snapshot);
+            case "price" -> AlgorithmPipeline.RowComparators.byPrice(snapshot);
+            case "distance" -> AlgorithmPipeline.RowComparators.byDistance(snapshot, BASE_LAT, BASE_LNG);
+            case "weighted" -> AlgorithmPipeline.RowComparators.weighted(snapshot, BASE_LAT, BASE_LNG);
+            default -> throw new IllegalArgumentException("Unknown comparator: " + name);
+        };
+    }
+
+    public static ToDoubleFunction<RestaurantDto> key(String name) {
+        return switch (name) {
+            case "rating" -> AlgorithmPipeline.RestaurantKeys.byRating();
+            case "price" -> AlgorithmPipeline.RestaurantKeys.byPrice();
+            case "distance" -> AlgorithmPipeline.RestaurantKeys.byDistance(BASE_LAT, BASE_LNG);
+            case "weighted" -> AlgorithmPipeline.RestaurantKeys.weighted(BASE_LAT, BASE_LNG);
+            default -> throw new IllegalArgumentException("Unknown key: " + name);
+        };
+    }
+
+    public static double[] rowKeys(String name, RestaurantSnapshot snapshot) {
+        return switch (name) {
+            case "rating" -> AlgorithmPipeline.RowKeys.byRating(snapshot);
+            case "price" -> AlgorithmPipeline.RowKeys.byPrice(snapshot);
+            case "distance" -> AlgorithmPipeline.RowKeys.byDistance(snapshot, BASE_LAT, BASE_LNG);
+            case "weighted" -> AlgorithmPipeline.RowKeys.weighted(snapshot, BASE_LAT, BASE_LNG);
+            default -> throw new IllegalArgumentException("Unknown key: " + name);
+        };
+    }
+}
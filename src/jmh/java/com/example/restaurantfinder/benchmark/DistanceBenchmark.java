@@ -0,0 +1,72 @@
+package com.example.restaurantfinder.benchmark;
+
+import com.example.restaurantfinder.algorithm.AlgorithmPipeline;
+import com.example.restaurantfinder.dtomodel.RestaurantDto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class DistanceBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    private List<RestaurantDto> data;
+
+    @Setup
+    public void setup() {
+        data = BenchmarkData.restaurants(size);
+
+        // Accuracy next to speed: worst error of each model against haversine on this data
+        AlgorithmPipeline.LocalProjection user = AlgorithmPipeline.LocalProjection.at(BenchmarkData.BASE_LAT, BenchmarkData.BASE_LNG);
+        double equirectangular = 0, degrees = 0;
+        for (RestaurantDto r : data) {
+            double exact = AlgorithmPipeline.haversine(r.getLat(), r.getLng(), BenchmarkData.BASE_LAT, BenchmarkData.BASE_LNG);
+            if (exact < 1) continue;
+            equirectangular = Math.max(equirectangular, Math.abs(user.km(r.getLat(), r.getLng()) * 1000 - exact) / exact);
+            double flat = AlgorithmPipeline.distance(r.getLat(), r.getLng(), BenchmarkData.BASE_LAT, BenchmarkData.BASE_LNG)
+                    * AlgorithmPipeline.KM_PER_DEGREE * 1000;
+            degrees = Math.max(degrees, Math.abs(flat - exact) / exact);
+        }
+        System.out.printf("%nmax relative error vs haversine: equirectangular %.5f%%, unscaled degrees %.1f%%%n",
+                equirectangular * 100, degrees * 100);
+    }
+
+    @Benchmark
+    public void fastDistance(Blackhole bh) {
+        for (RestaurantDto r : data) {
+            bh.consume(AlgorithmPipeline.fastDistance(r.getLat(), r.getLng(), BenchmarkData.BASE_LAT, BenchmarkData.BASE_LNG));
+        }
+    }
+
+    @Benchmark
+    public void distance(Blackhole bh) {
+        for (RestaurantDto r : data) {
+            bh.consume(AlgorithmPipeline.distance(r.getLat(), r.getLng(), BenchmarkData.BASE_LAT, BenchmarkData.BASE_LNG));
+        }
+    }
+
+    // cos(latitude) once per query, then multiply-only per row
+    @Benchmark
+    public void equirectangular(Blackhole bh) {
+        AlgorithmPipeline.LocalProjection user = AlgorithmPipeline.LocalProjection.at(BenchmarkData.BASE_LAT, BenchmarkData.BASE_LNG);
+        for (RestaurantDto r : data) {
+            bh.consume(user.km(r.getLat(), r.getLng()));
+        }
+    }
+
+    @Benchmark
+    public void haversine(Blackhole bh) {
+        for (RestaurantDto r : data) {
+            bh.consume(AlgorithmPipeline.haversine(r.getLat(), r.getLng(), BenchmarkData.BASE_LAT, BenchmarkData.BASE_LNG));
+        }
+    }
+}
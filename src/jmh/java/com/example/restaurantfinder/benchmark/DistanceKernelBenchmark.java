@@ -0,0 +1,64 @@
+package com.example.restaurantfinder.benchmark;
+
+import com.example.restaurantfinder.algorithm.AlgorithmPipeline;
+import com.example.restaurantfinder.algorithm.DistanceKernel;
+import com.example.restaurantfinder.dtomodel.RestaurantDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch distance pass over coordinate columns: per-row scalar call, scalar batch loop,
+ * and the Vector API kernel (needs --add-modules jdk.incubator.vector, set by the jmh profile).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class DistanceKernelBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private double[] lat;
+    private double[] lng;
+    private double[] out;
+
+    @Setup
+    public void setup() {
+        List<RestaurantDto> data = BenchmarkData.restaurants(size);
+        lat = new double[size];
+        lng = new double[size];
+        out = new double[size];
+        for (int i = 0; i < size; i++) {
+            lat[i] = data.get(i).getLat();
+            lng[i] = data.get(i).getLng();
+        }
+        if (!DistanceKernel.isVectorised()) {
+            System.err.println("jdk.incubator.vector not present: vector benchmark runs the scalar fallback");
+        }
+    }
+
+    @Benchmark
+    public double[] perRowCall() {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = AlgorithmPipeline.fastDistance(lat[i], lng[i], BenchmarkData.BASE_LAT, BenchmarkData.BASE_LNG);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] scalarBatch() {
+        DistanceKernel.scalarSquaredDistances(lat, lng, BenchmarkData.BASE_LAT, BenchmarkData.BASE_LNG, out);
+        return out;
+    }
+
+    @Benchmark
+    public double[] vectorBatch() {
+        DistanceKernel.squaredDistances(lat, lng, BenchmarkData.BASE_LAT, BenchmarkData.BASE_LNG, out);
+        return out;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.restaurantfinder.benchmark;
+
+import com.example.restaurantfinder.algorithm.AlgorithmPipeline;
+import com.example.restaurantfinder.dtomodel.RestaurantDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class KNearestBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    @Param({"5", "20", "50"})
+    public int k;
+
+    private List<RestaurantDto> data;
+    private AlgorithmPipeline.SpatialIndex index;
+
+    @Setup
+    public void setup() {
+        data = BenchmarkData.restaurants(size);
+        index = AlgorithmPipeline.SpatialIndex.build(data);
+    }
+
+    // Build + query, as done for a single request without a cached index
+    @Benchmark
+    public List<RestaurantDto> kNearest() {
+        return AlgorithmPipeline.kNearest(data, BenchmarkData.BASE_LAT, BenchmarkData.BASE_LNG, k);
+    }
+
+    // Query against an index built once per catalog snapshot
+    @Benchmark
+    public List<RestaurantDto> kNearestIndexed() {
+        return index.kNearest(BenchmarkData.BASE_LAT, BenchmarkData.BASE_LNG, k);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.restaurantfinder.benchmark;
+
+import com.example.restaurantfinder.algorithm.AlgorithmPipeline;
+import com.example.restaurantfinder.algorithm.MergeSortEngine;
+import com.example.restaurantfinder.dtomodel.RestaurantDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class MergeSortBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"rating", "distance"})
+    public String comparator;
+
+    private List<RestaurantDto> data;
+    private Comparator<RestaurantDto> cmp;
+
+    @Setup
+    public void setup() {
+        data = BenchmarkData.restaurants(size);
+        cmp = BenchmarkData.comparator(comparator);
+    }
+
+    @Benchmark
+    public List<RestaurantDto> javaSort() {
+        return AlgorithmPipeline.JavaSort.sort(data, cmp);
+    }
+
+    // Previous recursive implementation
+    @Benchmark
+    public List<RestaurantDto> topDown() {
+        return TopDownMergeSort.sort(data, cmp);
+    }
+
+    @Benchmark
+    public RestaurantDto[] bottomUpSequential() {
+        RestaurantDto[] array = data.toArray(new RestaurantDto[0]);
+        MergeSortEngine.sort(array, cmp, false);
+        return array;
+    }
+
+    @Benchmark
+    public RestaurantDto[] bottomUpParallel() {
+        RestaurantDto[] array = data.toArray(new RestaurantDto[0]);
+        MergeSortEngine.sort(array, cmp, true);
+        return array;
+    }
+}
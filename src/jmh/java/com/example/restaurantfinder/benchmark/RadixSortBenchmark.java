@@ -0,0 +1,55 @@
+package com.example.restaurantfinder.benchmark;
+
+import com.example.restaurantfinder.algorithm.AlgorithmPipeline;
+import com.example.restaurantfinder.algorithm.RestaurantSnapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row order for the price and rating methods: merge sort on the key column vs counting / radix sort.
+ * Only the ranking is measured, not DTO materialisation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class RadixSortBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private RestaurantSnapshot snapshot;
+
+    @Setup
+    public void setup() {
+        snapshot = RestaurantSnapshot.of(BenchmarkData.restaurants(size));
+    }
+
+    @Benchmark
+    public int[] ratingMergeSort() {
+        return AlgorithmPipeline.MergeSort.sortByKey(AlgorithmPipeline.RowKeys.byRating(snapshot));
+    }
+
+    @Benchmark
+    public int[] ratingRadixSort() {
+        return AlgorithmPipeline.RadixSort.byRating(snapshot);
+    }
+
+    @Benchmark
+    public int[] priceMergeSort() {
+        return AlgorithmPipeline.MergeSort.sortByKey(AlgorithmPipeline.RowKeys.byPrice(snapshot));
+    }
+
+    @Benchmark
+    public int[] priceCountingSort() {
+        return AlgorithmPipeline.RadixSort.byPrice(snapshot);
+    }
+
+    @Benchmark
+    public int[] priceThenRatingRadixSort() {
+        return AlgorithmPipeline.RadixSort.byPriceThenRating(snapshot);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.restaurantfinder.benchmark;
+
+import com.example.restaurantfinder.RestarauntFinderApplication;
+import com.example.restaurantfinder.dtomodel.RestaurantDto;
+import com.example.restaurantfinder.entity.RestaurantEntity;
+import com.example.restaurantfinder.repo.RestaurantRepo;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity hydration + copy vs. constructor-expression projection, against an in-memory H2.
+ * Run with -prof gc to compare gc.alloc.rate.norm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadPathBenchmark {
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    private ConfigurableApplicationContext context;
+    private RestaurantRepo repository;
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(RestarauntFinderApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:read-path-bench;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        // Leaves data/catalog.snapshot of a real run alone
+                        "--catalog.snapshot.enabled=false",
+                        "--logging.level.root=WARN");
+        repository = context.getBean(RestaurantRepo.class);
+
+        List<RestaurantEntity> entities = new ArrayList<>(size);
+        int i = 0;
+        for (RestaurantDto r : BenchmarkData.restaurants(size)) {
+            entities.add(RestaurantEntity.builder()
+                    .placeId("bench-" + i++)
+                    .name(r.getName())
+                    .address(r.getAddress())
+                    .rating(r.getRating())
+                    .lat(r.getLat())
+                    .lng(r.getLng())
+                    .priceLevel(r.getPriceLevel())
+                    .postNummer(r.getPostNummer())
+                    .build());
+        }
+        repository.saveAll(entities);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // Previous read path: managed entities, copied field by field
+    @Benchmark
+    public List<RestaurantDto> entityThenCopy() {
+        return repository.findAll().stream()
+                .map(e -> new RestaurantDto(e.getId(), e.getName(), e.getAddress(),
+                        e.getRating(), e.getLat(), e.getLng(), e.getPriceLevel(), e.getPostNummer()))
+                .toList();
+    }
+
+    @Benchmark
+    public List<RestaurantDto> dtoProjection() {
+        return repository.findAllDtos();
+    }
+}
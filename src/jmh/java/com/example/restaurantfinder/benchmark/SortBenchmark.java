@@ -0,0 +1,80 @@
+package com.example.restaurantfinder.benchmark;
+
+import com.example.restaurantfinder.algorithm.AlgorithmPipeline;
+import com.example.restaurantfinder.algorithm.RestaurantSnapshot;
+import com.example.restaurantfinder.dtomodel.RestaurantDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class SortBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    @Param({"rating", "price", "distance", "weighted"})
+    public String comparator;
+
+    private List<RestaurantDto> data;
+    private Comparator<RestaurantDto> cmp;
+    private RestaurantSnapshot snapshot;
+    private AlgorithmPipeline.RowComparator rowCmp;
+    private ToDoubleFunction<RestaurantDto> key;
+
+    @Setup
+    public void setup() {
+        data = BenchmarkData.restaurants(size);
+        cmp = BenchmarkData.comparator(comparator);
+        snapshot = RestaurantSnapshot.of(data);
+        rowCmp = BenchmarkData.rowComparator(comparator, snapshot);
+        key = BenchmarkData.key(comparator);
+    }
+
+    @Benchmark
+    public List<RestaurantDto> javaSort() {
+        return AlgorithmPipeline.JavaSort.sort(data, cmp);
+    }
+
+    @Benchmark
+    public List<RestaurantDto> mergeSort() {
+        return AlgorithmPipeline.MergeSort.sort(data, cmp);
+    }
+
+    // Columnar snapshot: sorts row indices, materialises DTOs for the result
+    @Benchmark
+    public List<RestaurantDto> snapshotMergeSort() {
+        return AlgorithmPipeline.sort(snapshot, rowCmp);
+    }
+
+    // Precomputed keys (decorate-sort-undecorate)
+    @Benchmark
+    public List<RestaurantDto> javaSortByKey() {
+        return AlgorithmPipeline.JavaSort.sortByKey(data, key);
+    }
+
+    @Benchmark
+    public List<RestaurantDto> mergeSortByKey() {
+        return AlgorithmPipeline.MergeSort.sortByKey(data, key);
+    }
+
+    // Key column computed per call, as in sortRestaurants
+    @Benchmark
+    public List<RestaurantDto> snapshotSortByKey() {
+        return AlgorithmPipeline.sortByKey(snapshot, BenchmarkData.rowKeys(comparator, snapshot));
+    }
+
+    // First page only (limit=10), as the UI requests it
+    @Benchmark
+    public List<RestaurantDto> snapshotTop10() {
+        return AlgorithmPipeline.topByKey(snapshot, BenchmarkData.rowKeys(comparator, snapshot), 0, 10);
+    }
+}
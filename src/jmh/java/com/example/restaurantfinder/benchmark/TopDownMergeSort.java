@@ -0,0 +1,45 @@
+package com.example.restaurantfinder.benchmark;
+
+import com.example.restaurantfinder.dtomodel.RestaurantDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The original recursive MergeSort (subList views, a new ArrayList per merge),
+ * kept as the baseline for MergeSortBenchmark.
+ */
+public final class TopDownMergeSort {
+
+    private TopDownMergeSort() {
+    }
+
+    public static List<RestaurantDto> sort(List<RestaurantDto> list, Comparator<RestaurantDto> comparator) {
+        if (list.size() <= 1) return new ArrayList<>(list);
+        int mid = list.size() / 2;
+        List<RestaurantDto> left = sort(list.subList(0, mid), comparator);
+        List<RestaurantDto> right = sort(list.subList(mid, list.size()), comparator);
+
+        return merge(left, right, comparator);
+    }
+
+    private static List<RestaurantDto> merge(
+            List<RestaurantDto> left, List<RestaurantDto> right,
+            Comparator<RestaurantDto> comparator) {
+        List<RestaurantDto> result = new ArrayList<>();
+        int i = 0, j = 0;
+        while (i < left.size() && j < right.size()) {
+            if (comparator.compare(left.get(i), right.get(j)) <= 0) {
+                result.add(left.get(i++));
+            } else {
+                result.add(right.get(j++));
+            }
+        }
+
+        result.addAll(left.subList(i, left.size()));
+        result.addAll(right.subList(j, right.size()));
+
+        return result;
+    }
+}
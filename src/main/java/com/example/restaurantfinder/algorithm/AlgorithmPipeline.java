@@ -3,11 +3,15 @@ package com.example.restaurantfinder.algorithm;
 import com.example.restaurantfinder.dtomodel.RestaurantDto;
 
 import java.util.*;
+import java.util.function.ToDoubleFunction;
 
 public class AlgorithmPipeline {
 
+    public static final double EARTH_RADIUS_METERS = 6_371_000;
+
     // ---------------------------
-    // Fast distance (no sqrt)
+    // Fast distance (no sqrt), in raw degrees: east-west is not scaled by cos(latitude),
+    // so rankings use LocalProjection instead
     // ---------------------------
     public static double fastDistance(double lat1, double lng1, double lat2, double lng2) {
         double dx = lat2 - lat1;
@@ -25,6 +29,70 @@ public class AlgorithmPipeline {
         );
     }
 
+    // ---------------------------
+    // Great-circle distance in metres (Haversine)
+    // ---------------------------
+    public static double haversine(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return EARTH_RADIUS_METERS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    // Length of one degree of latitude (and of longitude at the equator)
+    public static final double KM_PER_DEGREE = EARTH_RADIUS_METERS / 1000 * Math.PI / 180;
+
+    // Kilometres per degree of longitude shrink by cos(latitude); 0.56 in Copenhagen
+    public static double lngScale(double lat) {
+        return Math.cos(Math.toRadians(lat));
+    }
+
+    // ---------------------------
+    // Equirectangular approximation around a query point
+    // ---------------------------
+    /**
+     * Flat projection centred on the user: cos(latitude) is computed once per query, so each row
+     * costs two subtractions and a few multiplications. For city distances the error against
+     * haversine is far below a metre per kilometre.
+     */
+    public static final class LocalProjection {
+
+        private final double lat;
+        private final double lng;
+        private final double lngScale;
+
+        private LocalProjection(double lat, double lng) {
+            this.lat = lat;
+            this.lng = lng;
+            this.lngScale = AlgorithmPipeline.lngScale(lat);
+        }
+
+        public static LocalProjection at(double lat, double lng) {
+            return new LocalProjection(lat, lng);
+        }
+
+        public double lngScale() {
+            return lngScale;
+        }
+
+        // Squared distance in degrees of latitude; orders like km without the sqrt
+        public double squaredDegrees(double pointLat, double pointLng) {
+            double dLat = pointLat - lat;
+            double dLng = (pointLng - lng) * lngScale;
+            return dLat * dLat + dLng * dLng;
+        }
+
+        public double km(double pointLat, double pointLng) {
+            return Math.sqrt(squaredDegrees(pointLat, pointLng)) * KM_PER_DEGREE;
+        }
+    }
+
+    public static double equirectangularMeters(double lat1, double lng1, double lat2, double lng2) {
+        return LocalProjection.at(lat2, lng2).km(lat1, lng1) * 1000;
+    }
+
     // ---------------------------
     // Comparators
     // ---------------------------
@@ -35,8 +103,9 @@ public class AlgorithmPipeline {
         }
 
         public static Comparator<RestaurantDto> byDistance(double userLat, double userLng) {
+            LocalProjection user = LocalProjection.at(userLat, userLng);
             return Comparator.comparingDouble(
-                    r -> distance(r.getLat(), r.getLng(), userLat, userLng)
+                    r -> user.squaredDegrees(r.getLat(), r.getLng())
             );
         }
 
@@ -45,18 +114,117 @@ public class AlgorithmPipeline {
         }
 
         public static Comparator<RestaurantDto> weighted(double userLat, double userLng) {
+            LocalProjection user = LocalProjection.at(userLat, userLng);
             return Comparator.comparingDouble(r -> {
-                double dist = distance(r.getLat(), r.getLng(), userLat, userLng);
+                double dist = user.km(r.getLat(), r.getLng());
 
                 // GOOD = high rating, short distance, low price
-                return (5 - r.getRating()) * 2
-                        + dist
-                        + (r.getPriceLevel() * 0.5);
+                return weightedScore(r.getRating(), dist, r.getPriceLevel());
             });
         }
     }
 
 
+    // ---------------------------
+    // Sort keys: computed once per row, ascending key = better rank.
+    // Same order as the matching comparator, without recomputing distances on every compare.
+    // ---------------------------
+    public static class RestaurantKeys {
+
+        public static ToDoubleFunction<RestaurantDto> byPrice() {
+            return RestaurantDto::getPriceLevel;
+        }
+
+        public static ToDoubleFunction<RestaurantDto> byDistance(double userLat, double userLng) {
+            // Squared distance orders the same as distance
+            LocalProjection user = LocalProjection.at(userLat, userLng);
+            return r -> user.squaredDegrees(r.getLat(), r.getLng());
+        }
+
+        public static ToDoubleFunction<RestaurantDto> byRating() {
+            return r -> -r.getRating();
+        }
+
+        public static ToDoubleFunction<RestaurantDto> weighted(double userLat, double userLng) {
+            LocalProjection user = LocalProjection.at(userLat, userLng);
+            return r -> weightedScore(r.getRating(), user.km(r.getLat(), r.getLng()), r.getPriceLevel());
+        }
+    }
+
+    // GOOD = high rating, short distance (km), low price
+    static double weightedScore(double rating, double dist, int priceLevel) {
+        return (5 - rating) * 2
+                + dist
+                + (priceLevel * 0.5);
+    }
+
+    // Key columns for a snapshot, one entry per row
+    public static class RowKeys {
+
+        public static double[] byPrice(RestaurantSnapshot s) {
+            double[] keys = new double[s.size()];
+            for (int i = 0; i < keys.length; i++) keys[i] = s.price[i];
+            return keys;
+        }
+
+        // Whole column in one DistanceKernel call
+        public static double[] byDistance(RestaurantSnapshot s, double userLat, double userLng) {
+            return DistanceKernel.squaredDistances(s.lat, s.lng, userLat, userLng, lngScale(userLat));
+        }
+
+        public static double[] byRating(RestaurantSnapshot s) {
+            double[] keys = new double[s.size()];
+            for (int i = 0; i < keys.length; i++) keys[i] = -s.rating[i];
+            return keys;
+        }
+
+        public static double[] weighted(RestaurantSnapshot s, double userLat, double userLng) {
+            double[] keys = DistanceKernel.squaredDistances(s.lat, s.lng, userLat, userLng, lngScale(userLat));
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = weightedScore(s.rating[i], Math.sqrt(keys[i]) * KM_PER_DEGREE, s.price[i]);
+            }
+            return keys;
+        }
+    }
+
+    // ---------------------------
+    // Row comparators over a columnar snapshot
+    // ---------------------------
+    @FunctionalInterface
+    public interface RowComparator {
+        int compare(int rowA, int rowB);
+    }
+
+    public static class RowComparators {
+
+        public static RowComparator byPrice(RestaurantSnapshot s) {
+            return (a, b) -> Integer.compare(s.price[a], s.price[b]);
+        }
+
+        public static RowComparator byDistance(RestaurantSnapshot s, double userLat, double userLng) {
+            LocalProjection user = LocalProjection.at(userLat, userLng);
+            return (a, b) -> Double.compare(
+                    user.squaredDegrees(s.lat[a], s.lng[a]),
+                    user.squaredDegrees(s.lat[b], s.lng[b])
+            );
+        }
+
+        public static RowComparator byRating(RestaurantSnapshot s) {
+            return (a, b) -> Float.compare(s.rating[b], s.rating[a]);
+        }
+
+        public static RowComparator weighted(RestaurantSnapshot s, double userLat, double userLng) {
+            LocalProjection user = LocalProjection.at(userLat, userLng);
+            return (a, b) -> Double.compare(weightedScore(s, a, user), weightedScore(s, b, user));
+        }
+
+        private static double weightedScore(RestaurantSnapshot s, int row, LocalProjection user) {
+            double dist = user.km(s.lat[row], s.lng[row]);
+            return AlgorithmPipeline.weightedScore(s.rating[row], dist, s.price[row]);
+        }
+    }
+
+
     // ---------------------------
     // Java Built-in Sort (Timsort wrapper)
     // ---------------------------
@@ -66,6 +234,24 @@ public class AlgorithmPipeline {
             result.sort(comparator);
             return result;
         }
+
+        // Decorate-sort-undecorate: each key is computed once, Timsort compares the key array
+        public static List<RestaurantDto> sortByKey(List<RestaurantDto> list, ToDoubleFunction<RestaurantDto> key) {
+            double[] keys = keysOf(list, key);
+            Integer[] rows = new Integer[keys.length];
+            for (int i = 0; i < rows.length; i++) rows[i] = i;
+            Arrays.sort(rows, (a, b) -> Double.compare(keys[a], keys[b]));
+
+            List<RestaurantDto> result = new ArrayList<>(rows.length);
+            for (int row : rows) result.add(list.get(row));
+            return result;
+        }
+    }
+
+    private static double[] keysOf(List<RestaurantDto> list, ToDoubleFunction<RestaurantDto> key) {
+        double[] keys = new double[list.size()];
+        for (int i = 0; i < keys.length; i++) keys[i] = key.applyAsDouble(list.get(i));
+        return keys;
     }
 
     // ---------------------------
@@ -73,58 +259,232 @@ public class AlgorithmPipeline {
     // ---------------------------
     public static class MergeSort {
 
+        // Stable; bottom-up merge over one scratch array, parallel for large inputs (see MergeSortEngine)
         public static List<RestaurantDto> sort(List<RestaurantDto> list, Comparator<RestaurantDto> comparator) {
-            if (list.size() <= 1) return new ArrayList<>(list);
-            int mid = list.size() / 2;
-            List<RestaurantDto> left = sort(list.subList(0, mid), comparator);
-            List<RestaurantDto> right = sort(list.subList(mid, list.size()), comparator);
-
-            return merge(left, right, comparator);
-        }
-
-        private static List<RestaurantDto> merge(
-                List<RestaurantDto> left, List<RestaurantDto> right,
-                Comparator<RestaurantDto> comparator) {
-            List<RestaurantDto> result = new ArrayList<>();
-            int i = 0, j = 0;
-            while (i < left.size() && j < right.size()) {
-                if (comparator.compare(left.get(i), right.get(j)) <= 0) {
-                    result.add(left.get(i++));
-                } else {
-                    result.add(right.get(j++));
+            RestaurantDto[] array = list.toArray(new RestaurantDto[0]);
+            MergeSortEngine.sort(array, comparator);
+            return Arrays.asList(array);
+        }
+
+        // Decorate-sort-undecorate: each key is computed once, the merge compares the key array
+        public static List<RestaurantDto> sortByKey(List<RestaurantDto> list, ToDoubleFunction<RestaurantDto> key) {
+            int[] rows = sortByKey(keysOf(list, key));
+            List<RestaurantDto> result = new ArrayList<>(rows.length);
+            for (int row : rows) result.add(list.get(row));
+            return result;
+        }
+
+        // Stable order of indices by ascending key
+        public static int[] sortByKey(double[] keys) {
+            return sortRows(keys.length, (a, b) -> Double.compare(keys[a], keys[b]));
+        }
+
+        // Stable sort of row indices 0..n-1 of a snapshot
+        public static int[] sortRows(int n, RowComparator comparator) {
+            int[] rows = new int[n];
+            for (int i = 0; i < n; i++) rows[i] = i;
+            MergeSortEngine.sort(rows, comparator);
+            return rows;
+        }
+    }
+
+    // ---------------------------
+    // Counting / radix sort for the small integer domains (price, one-decimal rating)
+    // ---------------------------
+    public static class RadixSort {
+
+        static final int MIN_PRICE = -1;
+        static final int MAX_PRICE = 4;
+        static final int RATING_BUCKETS = 51;
+
+        // Cheapest first, O(n); same order as MergeSort on RowKeys.byPrice
+        public static int[] byPrice(RestaurantSnapshot s) {
+            return byPrice(s, CountingSortEngine.identity(s.size()));
+        }
+
+        // Best rated first, O(n) for one-decimal ratings; same order as MergeSort on RowKeys.byRating
+        public static int[] byRating(RestaurantSnapshot s) {
+            return byRating(s, CountingSortEngine.identity(s.size()));
+        }
+
+        // LSD: rating pass first, then a stable price pass, so equal prices stay best rated first
+        public static int[] byPriceThenRating(RestaurantSnapshot s) {
+            return byPrice(s, byRating(s));
+        }
+
+        private static int[] byPrice(RestaurantSnapshot s, int[] rows) {
+            int[] keys = new int[s.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = Math.max(MIN_PRICE, Math.min(MAX_PRICE, s.price[i]));
+            }
+            int[] sorted = CountingSortEngine.sort(rows, keys, MIN_PRICE, MAX_PRICE);
+            // Out-of-range prices were clamped; put them back in exact order
+            fixUpBuckets(sorted, keys, (a, b) -> Integer.compare(s.price[a], s.price[b]));
+            return sorted;
+        }
+
+        // Bucket = 50 - rating in tenths, so bucket 0 is 5.0
+        private static int[] byRating(RestaurantSnapshot s, int[] rows) {
+            int[] keys = new int[s.size()];
+            for (int i = 0; i < keys.length; i++) {
+                int tenths = Math.round(s.rating[i] * 10);
+                keys[i] = RATING_BUCKETS - 1 - Math.max(0, Math.min(RATING_BUCKETS - 1, tenths));
+            }
+            int[] sorted = CountingSortEngine.sort(rows, keys, 0, RATING_BUCKETS - 1);
+            // Ratings that are not whole tenths (or out of range) share a bucket with different values
+            fixUpBuckets(sorted, keys, (a, b) -> Float.compare(s.rating[b], s.rating[a]));
+            return sorted;
+        }
+
+        // Stable insertion sort inside each run of equal bucket keys; a no-op pass when the buckets are exact
+        private static void fixUpBuckets(int[] rows, int[] keys, RowComparator exact) {
+            int start = 0;
+            while (start < rows.length) {
+                int end = start + 1;
+                boolean ordered = true;
+                while (end < rows.length && keys[rows[end]] == keys[rows[start]]) {
+                    if (exact.compare(rows[end - 1], rows[end]) > 0) ordered = false;
+                    end++;
                 }
+                if (!ordered) {
+                    for (int i = start + 1; i < end; i++) {
+                        int row = rows[i];
+                        int j = i - 1;
+                        while (j >= start && exact.compare(rows[j], row) > 0) {
+                            rows[j + 1] = rows[j];
+                            j--;
+                        }
+                        rows[j + 1] = row;
+                    }
+                }
+                start = end;
             }
+        }
+    }
 
-            result.addAll(left.subList(i, left.size()));
-            result.addAll(right.subList(j, right.size()));
+    // One page of an already ranked row order; only the page is materialised
+    public static List<RestaurantDto> page(RestaurantSnapshot snapshot, int[] ranked, int offset, int limit) {
+        if (offset < 0 || limit < 0) throw new IllegalArgumentException("offset and limit must not be negative");
+        int end = (int) Math.min((long) offset + limit, ranked.length);
+        if (offset >= end) return new ArrayList<>();
+        return snapshot.toDtos(Arrays.copyOfRange(ranked, offset, end));
+    }
 
-            return result;
+    // Sorts the snapshot and materialises the rows in order
+    public static List<RestaurantDto> sort(RestaurantSnapshot snapshot, RowComparator comparator) {
+        return snapshot.toDtos(MergeSort.sortRows(snapshot.size(), comparator));
+    }
+
+    // Sorts the snapshot by a precomputed key column (see RowKeys)
+    public static List<RestaurantDto> sortByKey(RestaurantSnapshot snapshot, double[] keys) {
+        return snapshot.toDtos(MergeSort.sortByKey(keys));
+    }
+
+    // ---------------------------
+    // Top-K partial ranking
+    // ---------------------------
+    public static class TopK {
+
+        // Rows ranked [offset, offset + limit) by ascending key, in the same order a stable full sort gives.
+        // O(n log (offset + limit)) with a bounded heap; falls back to the full sort when the page reaches the end.
+        public static int[] select(double[] keys, int offset, int limit) {
+            if (offset < 0 || limit < 0) throw new IllegalArgumentException("offset and limit must not be negative");
+
+            int end = (int) Math.min((long) offset + limit, keys.length);
+            if (offset >= end) return new int[0];
+
+            int[] ranked;
+            if (end == keys.length) {
+                ranked = MergeSort.sortByKey(keys);
+            } else {
+                BoundedHeap heap = new BoundedHeap(end);
+                for (int row = 0; row < keys.length; row++) heap.offer(keys[row], row);
+                ranked = heap.drainAscending();
+            }
+            return Arrays.copyOfRange(ranked, offset, end);
         }
     }
 
+    // One page of the snapshot ranked by a key column; only the page is materialised
+    public static List<RestaurantDto> topByKey(RestaurantSnapshot snapshot, double[] keys, int offset, int limit) {
+        return snapshot.toDtos(TopK.select(keys, offset, limit));
+    }
+
 
 
+    // ---------------------------
+    // Spatial index (KD-tree) over a catalog snapshot
+    // ---------------------------
+    public static class SpatialIndex {
+
+        private final List<RestaurantDto> restaurants;
+        private final KdTree tree;
+
+        private SpatialIndex(List<RestaurantDto> restaurants) {
+            this.restaurants = List.copyOf(restaurants);
+            double[] lat = new double[this.restaurants.size()];
+            double[] lng = new double[this.restaurants.size()];
+            for (int i = 0; i < lat.length; i++) {
+                lat[i] = this.restaurants.get(i).getLat();
+                lng[i] = this.restaurants.get(i).getLng();
+            }
+            this.tree = KdTree.build(lat, lng);
+        }
+
+        public static SpatialIndex build(List<RestaurantDto> restaurants) {
+            return new SpatialIndex(restaurants);
+        }
+
+        public List<RestaurantDto> restaurants() {
+            return restaurants;
+        }
+
+        // k nearest restaurants, nearest first
+        public List<RestaurantDto> kNearest(double userLat, double userLng, int k) {
+            int[] rows = tree.nearest(userLat, userLng, k);
+            List<RestaurantDto> result = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                result.add(restaurants.get(row));
+            }
+            return result;
+        }
+    }
+
     // ---------------------------
     // K-Nearest Neighbor (KNN)
     // ---------------------------
+    // One-off list: a single O(n log k) bounded-heap scan, as building a tree for one query would cost
+    // O(n log n). Same metric and tie order as the tree, so the result matches SpatialIndex.kNearest;
+    // reuse a SpatialIndex (or a snapshot's index) for repeated queries over the same rows
     public static List<RestaurantDto> kNearest(
             List<RestaurantDto> restaurants,
             double userLat,
             double userLng,
             int k) {
 
-        PriorityQueue<RestaurantDto> pq = new PriorityQueue<>(
-                (a, b) -> Double.compare(
-                        fastDistance(b.getLat(), b.getLng(), userLat, userLng),
-                        fastDistance(a.getLat(), a.getLng(), userLat, userLng)
-                )
-        );
+        BoundedHeap heap = new BoundedHeap(Math.min(Math.max(k, 0), restaurants.size()));
+        double lngScale = lngScale(userLat);
+        for (int row = 0; row < restaurants.size(); row++) {
+            RestaurantDto r = restaurants.get(row);
+            double dLat = r.getLat() - userLat;
+            double dLng = (r.getLng() - userLng) * lngScale;
+            heap.offer(dLat * dLat + dLng * dLng, row);
+        }
 
-        for (RestaurantDto r : restaurants) {
-            pq.add(r);
-            if (pq.size() > k) pq.poll();
+        int[] rows = heap.drainAscending();
+        List<RestaurantDto> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(restaurants.get(row));
         }
+        return result;
+    }
+
+    public static List<RestaurantDto> kNearest(
+            RestaurantSnapshot snapshot,
+            double userLat,
+            double userLng,
+            int k) {
 
-        return new ArrayList<>(pq);
+        return snapshot.toDtos(snapshot.spatialIndex().nearest(userLat, userLng, k));
     }
 }
@@ -0,0 +1,89 @@
+package com.example.restaurantfinder.algorithm;
+
+/**
+ * Bounded max-heap on primitive (key, row) pairs that keeps the `capacity` smallest.
+ * Ties are broken by row index, so the kept set and its drained order match a stable ascending sort.
+ */
+final class BoundedHeap {
+
+    private final double[] keys;
+    private final int[] rows;
+    private int size;
+
+    BoundedHeap(int capacity) {
+        keys = new double[capacity];
+        rows = new int[capacity];
+    }
+
+    boolean isFull() {
+        return size == rows.length;
+    }
+
+    // Largest key kept so far; only meaningful once full
+    double worst() {
+        return keys[0];
+    }
+
+    private boolean after(int a, int b) {
+        int c = Double.compare(keys[a], keys[b]);
+        return c > 0 || (c == 0 && rows[a] > rows[b]);
+    }
+
+    void offer(double key, int row) {
+        if (rows.length == 0) return;
+        if (size < rows.length) {
+            keys[size] = key;
+            rows[size] = row;
+            siftUp(size++);
+            return;
+        }
+        int c = Double.compare(key, keys[0]);
+        if (c < 0 || (c == 0 && row < rows[0])) {
+            keys[0] = key;
+            rows[0] = row;
+            siftDown(0, size);
+        }
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!after(i, parent)) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i, int n) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= n) break;
+            int largest = left;
+            if (left + 1 < n && after(left + 1, left)) largest = left + 1;
+            if (!after(largest, i)) break;
+            swap(i, largest);
+            i = largest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        double k = keys[a];
+        keys[a] = keys[b];
+        keys[b] = k;
+        int r = rows[a];
+        rows[a] = rows[b];
+        rows[b] = r;
+    }
+
+    // Heap-sort in place (repeatedly moves the largest to the back), then returns the rows smallest first.
+    // The heap is unusable afterwards.
+    int[] drainAscending() {
+        for (int n = size - 1; n > 0; n--) {
+            swap(0, n);
+            siftDown(0, n);
+        }
+        int[] result = new int[size];
+        System.arraycopy(rows, 0, result, 0, size);
+        return result;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.restaurantfinder.algorithm;
+
+/**
+ * Stable counting sort over small integer keys, used by AlgorithmPipeline.RadixSort.
+ * One pass is O(n + range); chaining passes from the least to the most significant key
+ * (LSD radix) sorts by several keys, since each pass keeps the order of the previous one for ties.
+ */
+public final class CountingSortEngine {
+
+    private CountingSortEngine() {
+    }
+
+    /**
+     * Reorders rows by ascending keys[row]; rows with equal keys keep their order in `rows`.
+     * Every key must lie in [minKey, maxKey].
+     */
+    public static int[] sort(int[] rows, int[] keys, int minKey, int maxKey) {
+        int[] counts = new int[maxKey - minKey + 2];
+        for (int row : rows) {
+            int key = keys[row];
+            if (key < minKey || key > maxKey) {
+                throw new IllegalArgumentException("Key " + key + " outside [" + minKey + ", " + maxKey + "]");
+            }
+            counts[key - minKey + 1]++;
+        }
+        // counts[k] becomes the first output position of key minKey + k
+        for (int k = 1; k < counts.length; k++) counts[k] += counts[k - 1];
+
+        int[] sorted = new int[rows.length];
+        for (int row : rows) {
+            sorted[counts[keys[row] - minKey]++] = row;
+        }
+        return sorted;
+    }
+
+    public static int[] identity(int n) {
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) rows[i] = i;
+        return rows;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.restaurantfinder.algorithm;
+
+/**
+ * Batch form of the equirectangular distance (AlgorithmPipeline.LocalProjection): squared distances
+ * from one query point to every point of a lat/lng column pair, in one call. With lngScale 1 it is
+ * AlgorithmPipeline.fastDistance.
+ * Uses the jdk.incubator.vector API when the module is present (start the JVM with
+ * --add-modules jdk.incubator.vector), otherwise a plain scalar loop. Both give identical results.
+ */
+public final class DistanceKernel {
+
+    // Below this the vector setup costs more than it saves
+    static final int VECTOR_MIN_LENGTH = 16;
+
+    private static final boolean VECTOR_AVAILABLE = vectorModulePresent();
+
+    private DistanceKernel() {
+    }
+
+    // The vector class is only loaded when the module is there; -Drestaurantfinder.vector.disabled=true forces scalar
+    private static boolean vectorModulePresent() {
+        if (Boolean.getBoolean("restaurantfinder.vector.disabled")) return false;
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+
+    public static boolean isVectorised() {
+        return VECTOR_AVAILABLE;
+    }
+
+    public static double[] squaredDistances(double[] lat, double[] lng, double qLat, double qLng) {
+        double[] out = new double[lat.length];
+        squaredDistances(lat, lng, qLat, qLng, out);
+        return out;
+    }
+
+    /** Equirectangular form: longitude differences are multiplied by lngScale (see AlgorithmPipeline.lngScale). */
+    public static double[] squaredDistances(double[] lat, double[] lng, double qLat, double qLng, double lngScale) {
+        double[] out = new double[lat.length];
+        squaredDistances(lat, lng, qLat, qLng, lngScale, out);
+        return out;
+    }
+
+    /** out[i] = (lat[i] - qLat)² + (lng[i] - qLng)² for i < out.length */
+    public static void squaredDistances(double[] lat, double[] lng, double qLat, double qLng, double[] out) {
+        squaredDistances(lat, lng, qLat, qLng, 1.0, out);
+    }
+
+    /** out[i] = (lat[i] - qLat)² + ((lng[i] - qLng) · lngScale)² for i < out.length */
+    public static void squaredDistances(double[] lat, double[] lng, double qLat, double qLng, double lngScale, double[] out) {
+        checkLengths(lat, lng, out);
+        if (VECTOR_AVAILABLE && out.length >= VECTOR_MIN_LENGTH) {
+            VectorDistanceKernel.squaredDistances(lat, lng, qLat, qLng, lngScale, out);
+        } else {
+            scalarSquaredDistances(lat, lng, qLat, qLng, lngScale, out, 0);
+        }
+    }
+
+    public static void scalarSquaredDistances(double[] lat, double[] lng, double qLat, double qLng, double[] out) {
+        checkLengths(lat, lng, out);
+        scalarSquaredDistances(lat, lng, qLat, qLng, 1.0, out, 0);
+    }
+
+    // Also used for the tail the vector loop leaves over; multiplying by 1.0 is exact
+    static void scalarSquaredDistances(double[] lat, double[] lng, double qLat, double qLng, double lngScale,
+                                       double[] out, int from) {
+        for (int i = from; i < out.length; i++) {
+            double dx = lat[i] - qLat;
+            double dy = (lng[i] - qLng) * lngScale;
+            out[i] = dx * dx + dy * dy;
+        }
+    }
+
+    private static void checkLengths(double[] lat, double[] lng, double[] out) {
+        if (lat.length < out.length || lng.length < out.length) {
+            throw new IllegalArgumentException("lat and lng must be at least as long as out");
+        }
+    }
+}
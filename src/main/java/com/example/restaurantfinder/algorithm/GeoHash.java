@@ -0,0 +1,105 @@
+package com.example.restaurantfinder.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base-32 geohash encoding.
+ * Points sharing a prefix lie in the same cell, so a prefix scan on an indexed
+ * geohash column returns exactly the rows of that cell.
+ */
+public class GeoHash {
+
+    public static final int MAX_PRECISION = 12;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private GeoHash() {
+    }
+
+    public static String encode(double lat, double lng, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (lng >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLng = mid;
+                } else {
+                    ch <<= 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch <<= 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                hash.append(BASE32[ch]);
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    // Cell height in degrees latitude at the given precision
+    public static double cellHeight(int precision) {
+        int latBits = (precision * 5) / 2;
+        return 180.0 / (1L << latBits);
+    }
+
+    // Cell width in degrees longitude at the given precision
+    public static double cellWidth(int precision) {
+        int lngBits = (precision * 5 + 1) / 2;
+        return 360.0 / (1L << lngBits);
+    }
+
+    /**
+     * Cells covering the bounding box, at the finest precision where the box spans
+     * at most two cells per axis (so at most four prefixes are returned).
+     */
+    public static List<String> coverBoundingBox(double minLat, double minLng, double maxLat, double maxLng) {
+        double height = maxLat - minLat;
+        double width = maxLng - minLng;
+
+        int precision = MAX_PRECISION;
+        while (precision > 1 && (cellHeight(precision) < height || cellWidth(precision) < width)) {
+            precision--;
+        }
+
+        List<String> cells = new ArrayList<>(4);
+        double[] lats = {minLat, maxLat};
+        double[] lngs = {minLng, maxLng};
+        for (double lat : lats) {
+            for (double lng : lngs) {
+                String cell = encode(lat, lng, precision);
+                if (!cells.contains(cell)) cells.add(cell);
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Cells covering a circle of radiusMeters around the point.
+     */
+    public static List<String> coverRadius(double lat, double lng, double radiusMeters) {
+        double dLat = Math.toDegrees(radiusMeters / AlgorithmPipeline.EARTH_RADIUS_METERS);
+        double cosLat = Math.max(Math.cos(Math.toRadians(lat)), 1e-6);
+        double dLng = Math.min(dLat / cosLat, 180);
+        return coverBoundingBox(lat - dLat, lng - dLng, lat + dLat, lng + dLng);
+    }
+}
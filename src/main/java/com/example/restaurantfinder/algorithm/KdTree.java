@@ -0,0 +1,108 @@
+package com.example.restaurantfinder.algorithm;
+
+/**
+ * Static 2-d tree over (lat, lng) points.
+ * Built once per catalog snapshot, answers k-nearest queries in O(log n + k log k) on average.
+ * Results are row indices into the arrays the tree was built from, nearest first, by the
+ * equirectangular distance around the query point (see AlgorithmPipeline.LocalProjection).
+ */
+public class KdTree {
+
+    private final double[] lat;
+    private final double[] lng;
+
+    // Implicit tree: the node of range [lo, hi) is stored at (lo + hi) / 2,
+    // split on lat at even depth and lng at odd depth.
+    private final int[] nodes;
+
+    private KdTree(double[] lat, double[] lng) {
+        this.lat = lat;
+        this.lng = lng;
+        this.nodes = new int[lat.length];
+        for (int i = 0; i < nodes.length; i++) nodes[i] = i;
+        build(0, nodes.length, 0);
+    }
+
+    public static KdTree build(double[] lat, double[] lng) {
+        if (lat.length != lng.length) {
+            throw new IllegalArgumentException("lat and lng must have the same length");
+        }
+        return new KdTree(lat, lng);
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    // ---------------------------
+    // Build
+    // ---------------------------
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1) return;
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, depth & 1);
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
+    }
+
+    private double coord(int row, int axis) {
+        return axis == 0 ? lat[row] : lng[row];
+    }
+
+    // Quickselect: places the median of nodes[lo..hi] on the given axis at position k
+    private void select(int lo, int hi, int k, int axis) {
+        while (hi > lo) {
+            double pivot = coord(nodes[(lo + hi) >>> 1], axis);
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (coord(nodes[i], axis) < pivot) i++;
+                while (coord(nodes[j], axis) > pivot) j--;
+                if (i <= j) {
+                    int tmp = nodes[i];
+                    nodes[i] = nodes[j];
+                    nodes[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+
+    // ---------------------------
+    // Query
+    // ---------------------------
+    public int[] nearest(double qLat, double qLng, int k) {
+        int limit = Math.min(Math.max(k, 0), nodes.length);
+        if (limit == 0) return new int[0];
+
+        BoundedHeap heap = new BoundedHeap(limit);
+        search(0, nodes.length, 0, qLat, qLng, AlgorithmPipeline.lngScale(qLat), heap);
+        return heap.drainAscending();
+    }
+
+    // Equirectangular metric: longitude differences are scaled by cos(qLat), for the split planes too
+    private void search(int lo, int hi, int depth, double qLat, double qLng, double lngScale, BoundedHeap heap) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        int row = nodes[mid];
+
+        double dLat = lat[row] - qLat;
+        double dLng = (lng[row] - qLng) * lngScale;
+        heap.offer(dLat * dLat + dLng * dLng, row);
+
+        int axis = depth & 1;
+        double diff = axis == 0 ? qLat - lat[row] : (qLng - lng[row]) * lngScale;
+
+        // Visit the side containing the query first, the other only if the splitting plane is close enough
+        if (diff < 0) {
+            search(lo, mid, depth + 1, qLat, qLng, lngScale, heap);
+            if (!heap.isFull() || diff * diff <= heap.worst()) search(mid + 1, hi, depth + 1, qLat, qLng, lngScale, heap);
+        } else {
+            search(mid + 1, hi, depth + 1, qLat, qLng, lngScale, heap);
+            if (!heap.isFull() || diff * diff <= heap.worst()) search(lo, mid, depth + 1, qLat, qLng, lngScale, heap);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.restaurantfinder.algorithm;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Stable merge sort used by AlgorithmPipeline.MergeSort.
+ * Bottom-up over one scratch array allocated per sort, with insertion sort for short runs.
+ * Above PARALLEL_THRESHOLD the range is split across the common ForkJoin pool and
+ * the halves are merged as the tasks complete.
+ */
+public final class MergeSortEngine {
+
+    static final int INSERTION_CUTOFF = 32;
+    static final int PARALLEL_THRESHOLD = 8192;
+
+    private MergeSortEngine() {
+    }
+
+    private static boolean useParallel(int n) {
+        return n >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    // ---------------------------
+    // Objects
+    // ---------------------------
+    public static <T> void sort(T[] a, Comparator<? super T> c) {
+        sort(a, c, useParallel(a.length));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> void sort(T[] a, Comparator<? super T> c, boolean parallel) {
+        if (a.length < 2) return;
+        T[] scratch = (T[]) new Object[a.length];
+        if (parallel) {
+            ForkJoinPool.commonPool().invoke(new ObjectTask<>(a, scratch, 0, a.length, c));
+        } else {
+            sortRange(a, scratch, 0, a.length, c);
+        }
+    }
+
+    private static final class ObjectTask<T> extends RecursiveAction {
+        private final T[] a;
+        private final T[] scratch;
+        private final int lo;
+        private final int hi;
+        private final Comparator<? super T> c;
+
+        ObjectTask(T[] a, T[] scratch, int lo, int hi, Comparator<? super T> c) {
+            this.a = a;
+            this.scratch = scratch;
+            this.lo = lo;
+            this.hi = hi;
+            this.c = c;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= PARALLEL_THRESHOLD / 2) {
+                sortRange(a, scratch, lo, hi, c);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ObjectTask<>(a, scratch, lo, mid, c), new ObjectTask<>(a, scratch, mid, hi, c));
+            if (c.compare(a[mid - 1], a[mid]) <= 0) return;
+            System.arraycopy(a, lo, scratch, lo, hi - lo);
+            merge(scratch, a, lo, mid, hi, c);
+        }
+    }
+
+    // Sorts a[lo, hi) using scratch[lo, hi) as the buffer
+    private static <T> void sortRange(T[] a, T[] scratch, int lo, int hi, Comparator<? super T> c) {
+        for (int start = lo; start < hi; start += INSERTION_CUTOFF) {
+            insertionSort(a, start, Math.min(start + INSERTION_CUTOFF, hi), c);
+        }
+
+        T[] src = a;
+        T[] dst = scratch;
+        for (int width = INSERTION_CUTOFF; width < hi - lo; width *= 2) {
+            for (int left = lo; left < hi; left += 2 * width) {
+                int mid = Math.min(left + width, hi);
+                int right = Math.min(left + 2 * width, hi);
+                if (mid == right || c.compare(src[mid - 1], src[mid]) <= 0) {
+                    System.arraycopy(src, left, dst, left, right - left);
+                } else {
+                    merge(src, dst, left, mid, right, c);
+                }
+            }
+            T[] tmp = src;
+            src = dst;
+            dst = tmp;
+        }
+        if (src != a) System.arraycopy(src, lo, a, lo, hi - lo);
+    }
+
+    private static <T> void insertionSort(T[] a, int lo, int hi, Comparator<? super T> c) {
+        for (int i = lo + 1; i < hi; i++) {
+            T x = a[i];
+            int j = i - 1;
+            while (j >= lo && c.compare(a[j], x) > 0) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = x;
+        }
+    }
+
+    // Merges src[lo, mid) and src[mid, hi) into dst[lo, hi); left wins ties
+    private static <T> void merge(T[] src, T[] dst, int lo, int mid, int hi, Comparator<? super T> c) {
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi) {
+            dst[k++] = c.compare(src[i], src[j]) <= 0 ? src[i++] : src[j++];
+        }
+        if (i < mid) System.arraycopy(src, i, dst, k, mid - i);
+        else if (j < hi) System.arraycopy(src, j, dst, k, hi - j);
+    }
+
+    // ---------------------------
+    // Row indices (snapshot sorts)
+    // ---------------------------
+    public static void sort(int[] rows, AlgorithmPipeline.RowComparator c) {
+        sort(rows, c, useParallel(rows.length));
+    }
+
+    public static void sort(int[] rows, AlgorithmPipeline.RowComparator c, boolean parallel) {
+        if (rows.length < 2) return;
+        int[] scratch = new int[rows.length];
+        if (parallel) {
+            ForkJoinPool.commonPool().invoke(new RowTask(rows, scratch, 0, rows.length, c));
+        } else {
+            sortRange(rows, scratch, 0, rows.length, c);
+        }
+    }
+
+    private static final class RowTask extends RecursiveAction {
+        private final int[] a;
+        private final int[] scratch;
+        private final int lo;
+        private final int hi;
+        private final AlgorithmPipeline.RowComparator c;
+
+        RowTask(int[] a, int[] scratch, int lo, int hi, AlgorithmPipeline.RowComparator c) {
+            this.a = a;
+            this.scratch = scratch;
+            this.lo = lo;
+            this.hi = hi;
+            this.c = c;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= PARALLEL_THRESHOLD / 2) {
+                sortRange(a, scratch, lo, hi, c);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new RowTask(a, scratch, lo, mid, c), new RowTask(a, scratch, mid, hi, c));
+            if (c.compare(a[mid - 1], a[mid]) <= 0) return;
+            System.arraycopy(a, lo, scratch, lo, hi - lo);
+            merge(scratch, a, lo, mid, hi, c);
+        }
+    }
+
+    private static void sortRange(int[] a, int[] scratch, int lo, int hi, AlgorithmPipeline.RowComparator c) {
+        for (int start = lo; start < hi; start += INSERTION_CUTOFF) {
+            insertionSort(a, start, Math.min(start + INSERTION_CUTOFF, hi), c);
+        }
+
+        int[] src = a;
+        int[] dst = scratch;
+        for (int width = INSERTION_CUTOFF; width < hi - lo; width *= 2) {
+            for (int left = lo; left < hi; left += 2 * width) {
+                int mid = Math.min(left + width, hi);
+                int right = Math.min(left + 2 * width, hi);
+                if (mid == right || c.compare(src[mid - 1], src[mid]) <= 0) {
+                    System.arraycopy(src, left, dst, left, right - left);
+                } else {
+                    merge(src, dst, left, mid, right, c);
+                }
+            }
+            int[] tmp = src;
+            src = dst;
+            dst = tmp;
+        }
+        if (src != a) System.arraycopy(src, lo, a, lo, hi - lo);
+    }
+
+    private static void insertionSort(int[] a, int lo, int hi, AlgorithmPipeline.RowComparator c) {
+        for (int i = lo + 1; i < hi; i++) {
+            int x = a[i];
+            int j = i - 1;
+            while (j >= lo && c.compare(a[j], x) > 0) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = x;
+        }
+    }
+
+    private static void merge(int[] src, int[] dst, int lo, int mid, int hi, AlgorithmPipeline.RowComparator c) {
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi) {
+            dst[k++] = c.compare(src[i], src[j]) <= 0 ? src[i++] : src[j++];
+        }
+        if (i < mid) System.arraycopy(src, i, dst, k, mid - i);
+        else if (j < hi) System.arraycopy(src, j, dst, k, hi - j);
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.restaurantfinder.algorithm;
+
+import com.example.restaurantfinder.dtomodel.RestaurantDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Immutable struct-of-arrays view of a set of restaurants.
+ * Ranking runs over the primitive columns; DTOs are only created for the rows that are returned.
+ */
+public final class RestaurantSnapshot {
+
+    public static final RestaurantSnapshot EMPTY = of(List.of());
+
+    final long[] id;
+    final double[] lat;
+    final double[] lng;
+    final float[] rating;
+    final byte[] price;
+    final short[] postCode;
+
+    // Only read when a row is materialised
+    final String[] name;
+    final String[] address;
+
+    // postCode -> postNummer, shared by all snapshots derived from the same source
+    final String[] postNummers;
+
+    private volatile KdTree spatialIndex;
+
+    RestaurantSnapshot(long[] id, double[] lat, double[] lng, float[] rating, byte[] price,
+                       short[] postCode, String[] name, String[] address, String[] postNummers) {
+        this.id = id;
+        this.lat = lat;
+        this.lng = lng;
+        this.rating = rating;
+        this.price = price;
+        this.postCode = postCode;
+        this.name = name;
+        this.address = address;
+        this.postNummers = postNummers;
+    }
+
+    public static RestaurantSnapshot of(List<RestaurantDto> restaurants) {
+        int n = restaurants.size();
+        long[] id = new long[n];
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        float[] rating = new float[n];
+        byte[] price = new byte[n];
+        short[] postCode = new short[n];
+        String[] name = new String[n];
+        String[] address = new String[n];
+
+        Map<String, Short> dictionary = new HashMap<>();
+        List<String> postNummers = new ArrayList<>();
+
+        for (int i = 0; i < n; i++) {
+            RestaurantDto r = restaurants.get(i);
+            id[i] = r.getId() == null ? -1 : r.getId();
+            lat[i] = r.getLat();
+            lng[i] = r.getLng();
+            rating[i] = (float) r.getRating();
+            price[i] = r.getPriceLevel() == null ? -1 : r.getPriceLevel().byteValue();
+            name[i] = r.getName();
+            address[i] = r.getAddress();
+            postCode[i] = dictionary.computeIfAbsent(r.getPostNummer(), p -> {
+                if (postNummers.size() > Short.MAX_VALUE) {
+                    throw new IllegalStateException("Too many distinct postNummers for a snapshot");
+                }
+                postNummers.add(p);
+                return (short) (postNummers.size() - 1);
+            });
+        }
+
+        return new RestaurantSnapshot(id, lat, lng, rating, price, postCode, name, address,
+                postNummers.toArray(new String[0]));
+    }
+
+    public int size() {
+        return id.length;
+    }
+
+    public long id(int row) {
+        return id[row];
+    }
+
+    public double lat(int row) {
+        return lat[row];
+    }
+
+    public double lng(int row) {
+        return lng[row];
+    }
+
+    public float rating(int row) {
+        return rating[row];
+    }
+
+    public int priceLevel(int row) {
+        return price[row];
+    }
+
+    public String postNummer(int row) {
+        return postNummers[postCode[row]];
+    }
+
+    // ---------------------------
+    // Filtering
+    // ---------------------------
+    public RestaurantSnapshot filter(IntPredicate predicate) {
+        int[] rows = new int[size()];
+        int count = 0;
+        for (int i = 0; i < rows.length; i++) {
+            if (predicate.test(i)) rows[count++] = i;
+        }
+        return select(Arrays.copyOf(rows, count));
+    }
+
+    /** Rows whose postNummer satisfies the predicate; evaluated once per distinct postNummer. */
+    public RestaurantSnapshot filterByPostNummer(Predicate<String> predicate) {
+        boolean[] matches = new boolean[postNummers.length];
+        for (int code = 0; code < postNummers.length; code++) {
+            matches[code] = predicate.test(postNummers[code]);
+        }
+        return filter(row -> matches[postCode[row]]);
+    }
+
+    // New snapshot holding the given rows, in the given order
+    public RestaurantSnapshot select(int[] rows) {
+        int n = rows.length;
+        long[] id = new long[n];
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        float[] rating = new float[n];
+        byte[] price = new byte[n];
+        short[] postCode = new short[n];
+        String[] name = new String[n];
+        String[] address = new String[n];
+
+        for (int i = 0; i < n; i++) {
+            int row = rows[i];
+            id[i] = this.id[row];
+            lat[i] = this.lat[row];
+            lng[i] = this.lng[row];
+            rating[i] = this.rating[row];
+            price[i] = this.price[row];
+            postCode[i] = this.postCode[row];
+            name[i] = this.name[row];
+            address[i] = this.address[row];
+        }
+        return new RestaurantSnapshot(id, lat, lng, rating, price, postCode, name, address, postNummers);
+    }
+
+    // ---------------------------
+    // Spatial index, built on first kNN query
+    // ---------------------------
+    public KdTree spatialIndex() {
+        KdTree index = spatialIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = spatialIndex;
+                if (index == null) {
+                    index = KdTree.build(lat, lng);
+                    spatialIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    // ---------------------------
+    // Materialisation
+    // ---------------------------
+    public RestaurantDto toDto(int row) {
+        return new RestaurantDto(
+                id[row] < 0 ? null : id[row],
+                name[row],
+                address[row],
+                ratingAsDouble(rating[row]),
+                lat[row],
+                lng[row],
+                (int) price[row],
+                postNummers[postCode[row]]
+        );
+    }
+
+    // Widening 4.3f gives 4.300000190734863; return the decimal the float was made from instead
+    private static double ratingAsDouble(float rating) {
+        double oneDecimal = Math.rint(rating * 10.0) / 10.0;
+        if ((float) oneDecimal == rating) return oneDecimal;
+        return Double.parseDouble(Float.toString(rating));
+    }
+
+    public List<RestaurantDto> toDtos(int[] rows) {
+        List<RestaurantDto> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(toDto(row));
+        }
+        return result;
+    }
+
+    public List<RestaurantDto> toDtos() {
+        List<RestaurantDto> result = new ArrayList<>(size());
+        for (int row = 0; row < size(); row++) {
+            result.add(toDto(row));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.restaurantfinder.algorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary image of a RestaurantSnapshot, read and written whole through a FileChannel.
+ *
+ * Layout (big-endian): header (magic, version, rows, max id, catalog version, dictionary size), then the primitive
+ * columns back to back (id, lat, lng, rating, price, postCode), then the postNummer dictionary, names
+ * and addresses as length-prefixed UTF-8 (length -1 for null). The file is read into one heap buffer and
+ * the columns are copied out with bulk gets, so loading costs one read, a few memcpys and decoding the
+ * strings. No mapping is kept: on Windows a mapped file can be neither replaced nor deleted, which
+ * would break the next rewrite.
+ */
+public final class SnapshotFile {
+
+    private static final int MAGIC = 0x52465331; // "RFS1"
+    private static final int VERSION = 3;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 8 + 4;
+
+    /**
+     * What the file claims to hold; checked against the database before the columns are read.
+     * catalogVersion is the catalog_version row read with the rows (CatalogVersionRepo), so an
+     * update in place is noticed even though it leaves the row count and max id alone.
+     */
+    public record Header(int rows, long maxId, long catalogVersion) {
+    }
+
+    private SnapshotFile() {
+    }
+
+    // ---------------------------
+    // Write (to a temporary file, then moved over the old one)
+    // ---------------------------
+    public static void write(RestaurantSnapshot s, long catalogVersion, Path path) throws IOException {
+        int n = s.size();
+        byte[][] dictionary = encode(s.postNummers);
+        byte[][] names = encode(s.name);
+        byte[][] addresses = encode(s.address);
+
+        long size = HEADER_BYTES + (long) n * (8 + 8 + 8 + 4 + 1 + 2)
+                + stringBytes(dictionary) + stringBytes(names) + stringBytes(addresses);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot too large for one mapping: " + size + " bytes");
+        }
+
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            ByteBuffer out = ByteBuffer.allocate((int) size);
+            out.putInt(MAGIC).putInt(VERSION).putInt(n).putLong(maxId(s)).putLong(catalogVersion)
+                    .putInt(dictionary.length);
+
+            out.asLongBuffer().put(s.id);
+            out.position(out.position() + n * 8);
+            out.asDoubleBuffer().put(s.lat);
+            out.position(out.position() + n * 8);
+            out.asDoubleBuffer().put(s.lng);
+            out.position(out.position() + n * 8);
+            out.asFloatBuffer().put(s.rating);
+            out.position(out.position() + n * 4);
+            out.put(s.price);
+            out.asShortBuffer().put(s.postCode);
+            out.position(out.position() + n * 2);
+
+            putStrings(out, dictionary);
+            putStrings(out, names);
+            putStrings(out, addresses);
+            out.flip();
+
+            // Closed before the move, so nothing holds the temporary file open
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                while (out.hasRemaining()) channel.write(out);
+                channel.force(true);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    static long maxId(RestaurantSnapshot s) {
+        long max = 0;
+        for (long id : s.id) max = Math.max(max, id);
+        return max;
+    }
+
+    private static byte[][] encode(String[] values) {
+        byte[][] encoded = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = values[i] == null ? null : values[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    private static long stringBytes(byte[][] values) {
+        long bytes = 0;
+        for (byte[] value : values) bytes += 4 + (value == null ? 0 : value.length);
+        return bytes;
+    }
+
+    private static void putStrings(ByteBuffer out, byte[][] values) {
+        for (byte[] value : values) {
+            if (value == null) {
+                out.putInt(-1);
+            } else {
+                out.putInt(value.length).put(value);
+            }
+        }
+    }
+
+    // ---------------------------
+    // Read
+    // ---------------------------
+    public static Header readHeader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+            header.flip();
+            return checkHeader(header);
+        }
+    }
+
+    private static Header checkHeader(ByteBuffer in) throws IOException {
+        if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC) {
+            throw new IOException("Not a catalog snapshot file");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        int rows = in.getInt();
+        long maxId = in.getLong();
+        long catalogVersion = in.getLong();
+        return new Header(rows, maxId, catalogVersion);
+    }
+
+    public static RestaurantSnapshot read(Path path) throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Snapshot too large: " + size + " bytes");
+            in = ByteBuffer.allocate((int) size);
+            while (in.hasRemaining() && channel.read(in) >= 0) {
+                // read the whole file
+            }
+            in.flip();
+        }
+        try {
+            int n = checkHeader(in).rows();
+            int dictionarySize = in.getInt();
+
+            long[] id = new long[n];
+            double[] lat = new double[n];
+            double[] lng = new double[n];
+            float[] rating = new float[n];
+            byte[] price = new byte[n];
+            short[] postCode = new short[n];
+
+            in.asLongBuffer().get(id);
+            in.position(in.position() + n * 8);
+            in.asDoubleBuffer().get(lat);
+            in.position(in.position() + n * 8);
+            in.asDoubleBuffer().get(lng);
+            in.position(in.position() + n * 8);
+            in.asFloatBuffer().get(rating);
+            in.position(in.position() + n * 4);
+            in.get(price);
+            in.asShortBuffer().get(postCode);
+            in.position(in.position() + n * 2);
+
+            String[] postNummers = getStrings(in, dictionarySize);
+            String[] name = getStrings(in, n);
+            String[] address = getStrings(in, n);
+            return new RestaurantSnapshot(id, lat, lng, rating, price, postCode, name, address, postNummers);
+        } catch (RuntimeException e) {
+            // BufferUnderflowException, IndexOutOfBoundsException, ... on a truncated or corrupt file
+            throw new IOException("Corrupt catalog snapshot file: " + path, e);
+        }
+    }
+
+    private static String[] getStrings(ByteBuffer in, int count) {
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = in.getInt();
+            if (length < 0) continue;
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+}
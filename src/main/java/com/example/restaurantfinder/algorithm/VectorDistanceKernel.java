@@ -0,0 +1,31 @@
+package com.example.restaurantfinder.algorithm;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD body of DistanceKernel; only touched when jdk.incubator.vector is in the boot layer.
+ * Uses separate mul and add (no fma) so every lane matches the scalar result bit for bit.
+ */
+final class VectorDistanceKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorDistanceKernel() {
+    }
+
+    static void squaredDistances(double[] lat, double[] lng, double qLat, double qLng, double lngScale, double[] out) {
+        DoubleVector queryLat = DoubleVector.broadcast(SPECIES, qLat);
+        DoubleVector queryLng = DoubleVector.broadcast(SPECIES, qLng);
+        DoubleVector scale = DoubleVector.broadcast(SPECIES, lngScale);
+
+        int i = 0;
+        int upper = SPECIES.loopBound(out.length);
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, lat, i).sub(queryLat);
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, lng, i).sub(queryLng).mul(scale);
+            dx.mul(dx).add(dy.mul(dy)).intoArray(out, i);
+        }
+        DistanceKernel.scalarSquaredDistances(lat, lng, qLat, qLng, lngScale, out, i);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.restaurantfinder.client;
+
+/**
+ * A Google Maps call that failed, either at the HTTP level or with a non-OK API status.
+ */
+public class GoogleApiException extends RuntimeException {
+
+    private final String status;
+
+    public GoogleApiException(String status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public GoogleApiException(String status, String message, Throwable cause) {
+        super(message, cause);
+        this.status = status;
+    }
+
+    // Google API status (OK, ZERO_RESULTS, OVER_QUERY_LIMIT, ...) or HTTP_<code> / IO_ERROR
+    public String getStatus() {
+        return status;
+    }
+}
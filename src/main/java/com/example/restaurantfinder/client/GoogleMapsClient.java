@@ -0,0 +1,220 @@
+package com.example.restaurantfinder.client;
+
+import com.example.restaurantfinder.metrics.RestaurantMetrics;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Outbound client for the Google Geocoding and Places APIs.
+ * One HttpClient is shared by all requests, so connections (and TLS sessions) are pooled
+ * and kept alive; calls return CompletableFutures and never block the caller's thread.
+ */
+@Component
+public class GoogleMapsClient {
+
+    private final HttpClient http;
+    private final ObjectMapper mapper;
+    private final RestaurantMetrics metrics;
+    private final String baseUrl;
+    private final String apiKey;
+    private final Duration requestTimeout;
+    private final int maxPages;
+    private final Duration pageTokenDelay;
+    private final int pageTokenAttempts;
+
+    public GoogleMapsClient(
+            ObjectMapper mapper,
+            RestaurantMetrics metrics,
+            @Value("${google.api.base-url:https://maps.googleapis.com}") String baseUrl,
+            @Value("${google.api.key:${GOOGLE_API_KEY:}}") String apiKey,
+            @Value("${google.api.connect-timeout:PT5S}") Duration connectTimeout,
+            @Value("${google.api.request-timeout:PT10S}") Duration requestTimeout,
+            @Value("${google.places.max-pages:3}") int maxPages,
+            @Value("${google.places.page-token-delay:PT2S}") Duration pageTokenDelay,
+            @Value("${google.places.page-token-attempts:3}") int pageTokenAttempts) {
+        this.mapper = mapper;
+        this.metrics = metrics;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.apiKey = apiKey;
+        this.requestTimeout = requestTimeout;
+        this.maxPages = maxPages;
+        this.pageTokenDelay = pageTokenDelay;
+        this.pageTokenAttempts = pageTokenAttempts;
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    public boolean isConfigured() {
+        return apiKey != null && !apiKey.isEmpty();
+    }
+
+    // ---------------------------
+    // Geocoding
+    // ---------------------------
+    /** Coordinates {lat, lng} of the postNummer, looked up as "<postNummer> Copenhagen Denmark". */
+    public CompletableFuture<double[]> geocode(String postNummer) {
+        String address = postNummer + " Copenhagen Denmark";
+        String url = baseUrl + "/maps/api/geocode/json"
+                + "?address=" + encode(address)
+                + "&key=" + encode(apiKey);
+
+        return metrics.timeGoogle("geocode", () -> getJson(url).thenApply(root -> {
+            String status = root.path("status").asText();
+            if (!"OK".equals(status)) {
+                throw new GoogleApiException(status, "Geocoding failed with status: " + status
+                        + ". This postal code may not exist or be valid for Copenhagen, Denmark.");
+            }
+            JsonNode results = root.path("results");
+            if (results.size() == 0) {
+                throw new GoogleApiException("ZERO_RESULTS", "No results found for postal code: " + postNummer);
+            }
+            JsonNode location = results.get(0).path("geometry").path("location");
+            return new double[]{location.path("lat").asDouble(), location.path("lng").asDouble()};
+        }));
+    }
+
+    // ---------------------------
+    // Places Nearby Search
+    // ---------------------------
+    /** First page of restaurants within radiusMeters; the whole response body (incl. next_page_token) is returned. */
+    public CompletableFuture<JsonNode> nearbySearch(double lat, double lng, int radiusMeters) {
+        String url = baseUrl + "/maps/api/place/nearbysearch/json"
+                + "?location=" + lat + "," + lng
+                + "&radius=" + radiusMeters
+                + "&type=restaurant"
+                + "&keyword=restaurant"
+                + "&key=" + encode(apiKey);
+
+        return metrics.timeGoogle("nearby", () -> getJson(url).thenApply(GoogleMapsClient::requireSearchStatus));
+    }
+
+    /**
+     * Follow-up page for a next_page_token from an earlier response.
+     * Google only accepts a token a short while after issuing it; until then it answers INVALID_REQUEST.
+     */
+    public CompletableFuture<JsonNode> nearbySearchPage(String pageToken) {
+        String url = baseUrl + "/maps/api/place/nearbysearch/json"
+                + "?pagetoken=" + encode(pageToken)
+                + "&key=" + encode(apiKey);
+
+        return metrics.timeGoogle("nearby_page", () -> getJson(url).thenApply(GoogleMapsClient::requireSearchStatus));
+    }
+
+    /**
+     * All pages of a Nearby Search (Google returns at most 20 results per page).
+     * onPage is called with each page's results as soon as it arrives, before the next token is
+     * requested; the future completes with the number of pages read.
+     */
+    public CompletableFuture<Integer> nearbySearchPages(double lat, double lng, int radiusMeters,
+                                                        Consumer<List<JsonNode>> onPage) {
+        return nearbySearch(lat, lng, radiusMeters).thenCompose(first -> followPages(first, 1, onPage));
+    }
+
+    private CompletableFuture<Integer> followPages(JsonNode page, int pageNumber, Consumer<List<JsonNode>> onPage) {
+        onPage.accept(results(page));
+
+        String token = page.path("next_page_token").asText("");
+        if (token.isEmpty() || pageNumber >= maxPages) {
+            return CompletableFuture.completedFuture(pageNumber);
+        }
+        return pageWhenActive(token, pageTokenAttempts)
+                .thenCompose(next -> followPages(next, pageNumber + 1, onPage));
+    }
+
+    // Waits pageTokenDelay before each attempt; INVALID_REQUEST means the token is not active yet
+    private CompletableFuture<JsonNode> pageWhenActive(String token, int attemptsLeft) {
+        Executor delayed = CompletableFuture.delayedExecutor(pageTokenDelay.toMillis(), TimeUnit.MILLISECONDS);
+        return CompletableFuture.supplyAsync(() -> token, delayed)
+                .thenCompose(this::nearbySearchPage)
+                .exceptionallyCompose(error -> {
+                    RuntimeException e = unwrap(error);
+                    if (e instanceof GoogleApiException api && "INVALID_REQUEST".equals(api.getStatus()) && attemptsLeft > 1) {
+                        return pageWhenActive(token, attemptsLeft - 1);
+                    }
+                    return CompletableFuture.failedFuture(e);
+                });
+    }
+
+    public static List<JsonNode> results(JsonNode page) {
+        List<JsonNode> list = new ArrayList<>();
+        page.path("results").forEach(list::add);
+        return list;
+    }
+
+    // ZERO_RESULTS is an empty page, not an error
+    static JsonNode requireSearchStatus(JsonNode root) {
+        String status = root.path("status").asText("OK");
+        if (!"OK".equals(status) && !"ZERO_RESULTS".equals(status)) {
+            String message = root.path("error_message").asText("Nearby search failed with status: " + status);
+            throw new GoogleApiException(status, message);
+        }
+        return root;
+    }
+
+    // ---------------------------
+    // Transport
+    // ---------------------------
+    CompletableFuture<JsonNode> getJson(String url) {
+        if (!isConfigured()) {
+            return CompletableFuture.failedFuture(new GoogleApiException("REQUEST_DENIED",
+                    "Google API Key is not configured. Please set GOOGLE_API_KEY environment variable."));
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        throw new GoogleApiException("IO_ERROR", "Google request failed: " + cause, cause);
+                    }
+                    if (response.statusCode() != 200) {
+                        throw new GoogleApiException("HTTP_" + response.statusCode(),
+                                "Google responded with HTTP " + response.statusCode());
+                    }
+                    try {
+                        return mapper.readTree(response.body());
+                    } catch (IOException e) {
+                        throw new GoogleApiException("INVALID_RESPONSE", "Unreadable Google response", e);
+                    }
+                });
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /** Unwraps the GoogleApiException (or other cause) from a failed join(). */
+    public static RuntimeException unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof RuntimeException runtime ? runtime : new RuntimeException(cause);
+    }
+}
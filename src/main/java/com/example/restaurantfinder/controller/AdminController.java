@@ -0,0 +1,69 @@
+package com.example.restaurantfinder.controller;
+
+
+import com.example.restaurantfinder.dtomodel.BulkIngestJobDto;
+import com.example.restaurantfinder.dtomodel.BulkIngestRequest;
+import com.example.restaurantfinder.service.BulkIngestService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+
+@RestController
+
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    @Autowired
+    BulkIngestService bulkIngestService;
+
+    // Bulk ingest spends Google quota, so it is off unless switched on; a token, when set, must be sent too
+    @Value("${admin.ingest.enabled:false}")
+    boolean ingestEnabled;
+
+    @Value("${admin.ingest.token:}")
+    String ingestToken;
+
+
+    // Start pre-warming a list and/or range of postcodes; poll the returned job id for progress
+    @PostMapping("/ingest")
+    public ResponseEntity<?> startIngest(@RequestHeader(value = "X-Admin-Token", required = false) String token,
+                                         @RequestBody BulkIngestRequest request) {
+        ResponseEntity<?> denied = checkAccess(token);
+        if (denied != null) return denied;
+        try {
+            BulkIngestJobDto job = bulkIngestService.start(request);
+            return ResponseEntity.accepted().body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+
+    @GetMapping("/ingest/{jobId}")
+    public ResponseEntity<?> ingestStatus(@RequestHeader(value = "X-Admin-Token", required = false) String token,
+                                          @PathVariable String jobId) {
+        ResponseEntity<?> denied = checkAccess(token);
+        if (denied != null) return denied;
+        BulkIngestJobDto job = bulkIngestService.status(jobId);
+        if (job == null) return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(job);
+    }
+
+
+    // 404 while bulk ingest is switched off, 403 for a missing or wrong token; null when allowed
+    private ResponseEntity<?> checkAccess(String token) {
+        if (!ingestEnabled) return ResponseEntity.notFound().build();
+        if (ingestToken.isBlank()) return null;
+        if (token == null || !MessageDigest.isEqual(
+                token.getBytes(StandardCharsets.UTF_8), ingestToken.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Missing or wrong X-Admin-Token");
+        }
+        return null;
+    }
+}
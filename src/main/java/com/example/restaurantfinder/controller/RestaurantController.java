@@ -1,13 +1,36 @@
 package com.example.restaurantfinder.controller;
 
 
+import com.example.restaurantfinder.client.GoogleApiException;
+import com.example.restaurantfinder.client.GoogleMapsClient;
 import com.example.restaurantfinder.dtomodel.RestaurantDto;
+import com.example.restaurantfinder.metrics.MeasuredResponse;
+import com.example.restaurantfinder.metrics.RestaurantMetrics;
+import com.example.restaurantfinder.service.GeocodeCache;
+import com.example.restaurantfinder.service.RankingCache;
+import com.example.restaurantfinder.service.RestaurantCatalog;
+import com.example.restaurantfinder.service.WriteBehindBuffer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.example.restaurantfinder.service.RestaurantService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 @RestController
@@ -18,12 +41,72 @@ public class RestaurantController {
     @Autowired
     RestaurantService restaurantService;
 
+    @Autowired
+    GeocodeCache geocodeCache;
+
+    @Autowired
+    RankingCache rankingCache;
+
+    @Autowired
+    RestaurantCatalog catalog;
+
+    @Autowired
+    WriteBehindBuffer writeBehind;
 
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    RestaurantMetrics metrics;
+
+
+    // Async: the request thread is released while Google is called
     @GetMapping("/restaurants" )
-    public ResponseEntity<List<RestaurantDto>> getRestaurants(@RequestParam String postNummer) {
+    @MeasuredResponse("restaurants")
+    public CompletableFuture<ResponseEntity<?>> getRestaurants(@RequestParam String postNummer) {
+
+        return restaurantService.fetchAndSaveRestaurantsAsync(postNummer)
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(error -> {
+                    RuntimeException e = GoogleMapsClient.unwrap(error);
+                    if (e instanceof GoogleApiException) {
+                        return ResponseEntity.status(502).body("Google API error: " + e.getMessage());
+                    }
+                    return ResponseEntity.status(500).body("Error fetching restaurants: " + e.getMessage());
+                });
+    }
 
-        List<RestaurantDto> response =restaurantService.fetchAndSaveRestaurants(postNummer);
-        return ResponseEntity.ok(response);
+
+    // Cold fetch as NDJSON: each Nearby Search page is written as soon as it has been stored.
+    // If the client goes away, sending stops but the fetch still stores every page
+    @GetMapping(value = "/restaurants/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseBodyEmitter streamRestaurants(@RequestParam String postNummer) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+        AtomicBoolean open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(error -> open.set(false));
+
+        restaurantService.fetchAndSaveRestaurantPages(postNummer, page -> {
+                    if (!open.get()) return;
+                    try {
+                        StringBuilder lines = new StringBuilder();
+                        for (RestaurantDto dto : page) {
+                            lines.append(objectMapper.writeValueAsString(dto)).append('\n');
+                        }
+                        if (!lines.isEmpty()) emitter.send(lines.toString(), MediaType.APPLICATION_NDJSON);
+                    } catch (IOException | IllegalStateException e) {
+                        // Disconnected or already completed: stop sending, keep fetching
+                        open.set(false);
+                        System.out.println("Stream for " + postNummer + " closed by client: " + e.getMessage());
+                    }
+                })
+                .whenComplete((done, error) -> {
+                    if (!open.getAndSet(false)) return;
+                    if (error == null) emitter.complete();
+                    else emitter.completeWithError(GoogleMapsClient.unwrap(error));
+                });
+        return emitter;
     }
 
 
@@ -35,24 +118,142 @@ public class RestaurantController {
 
 
 
+    // Whole catalog as NDJSON (one restaurant per line), written while the DB cursor is read
+    @GetMapping(value = "/getAll/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        ObjectWriter writer = objectMapper.writerFor(RestaurantDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = response -> {
+            // Only the writing is timed, not the cursor reads in between
+            long[] writeNanos = {0};
+            int[] rows = {0};
+            CountingOutputStream out = new CountingOutputStream(response);
+            JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null);
+            restaurantService.streamAllRestaurants(dto -> {
+                long start = System.nanoTime();
+                try {
+                    writer.writeValue(json, dto);
+                    json.writeRaw('\n');
+                    rows[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                writeNanos[0] += System.nanoTime() - start;
+            });
+            long start = System.nanoTime();
+            json.flush();
+            writeNanos[0] += System.nanoTime() - start;
+            metrics.recordSerialisation("getAll/stream", writeNanos[0]);
+            metrics.recordRows("getAll/stream", rows[0]);
+            metrics.recordBytes("getAll/stream", out.count);
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+
+    // Counts the bytes written through it, for the response size of a streamed body
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    // Keyset pagination: start with afterId=0, then pass nextAfterId until it is null
+    @GetMapping("/getAll/page")
+    public ResponseEntity<?> getAllPage(
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "100") int size
+    ) {
+        try {
+            return ResponseEntity.ok(restaurantService.getRestaurantsPage(afterId, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+
+
     @GetMapping("/restaurants/filter")
-    public List<RestaurantDto> getByPostNummer(@RequestParam String postNummer) {
-        return restaurantService.getRestaurantsByPostNummer(postNummer);
+    public ResponseEntity<?> getByPostNummer(
+            @RequestParam String postNummer,
+            @RequestParam(defaultValue = "exact") String match
+    ) {
+        try {
+            return ResponseEntity.ok(restaurantService.getRestaurantsByPostNummer(postNummer, match));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+
+
+    // Saved restaurants within a radius (metres) of a point
+    @GetMapping("/restaurants/nearby")
+    public List<RestaurantDto> getNearby(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "1000") double radius
+    ) {
+        return restaurantService.getRestaurantsWithinRadius(lat, lng, radius);
+    }
+
+
+    // Saved restaurants inside a bounding box
+    @GetMapping("/restaurants/bbox")
+    public List<RestaurantDto> getInBoundingBox(
+            @RequestParam double minLat,
+            @RequestParam double minLng,
+            @RequestParam double maxLat,
+            @RequestParam double maxLng
+    ) {
+        return restaurantService.getRestaurantsInBoundingBox(minLat, minLng, maxLat, maxLng);
+    }
+
+
+
+    // Cache hit/miss counters
+    @GetMapping("/cache/stats")
+    public Map<String, Object> cacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("geocode", geocodeCache.stats());
+        stats.put("ranking", rankingCache.stats());
+        stats.put("catalog", catalog.stats());
+        stats.put("writeBehind", writeBehind.stats());
+        return stats;
     }
 
 
 
     // Sort already-saved restaurants
     @GetMapping("/restaurants/sort")
+    @MeasuredResponse("sort")
     public ResponseEntity<?> sortRestaurants(
             @RequestParam String postNummer,
             @RequestParam String method,
             @RequestParam(required = false) Double lat,
             @RequestParam(required = false) Double lng,
-            @RequestParam(required = false) Integer k
+            @RequestParam(required = false) Integer k,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(defaultValue = "0") int offset
     ) {
         try {
-            List<RestaurantDto> restaurants = restaurantService.sortRestaurants(postNummer, method, lat, lng, k);
+            List<RestaurantDto> restaurants = restaurantService.sortRestaurants(postNummer, method, lat, lng, k, limit, offset);
             return ResponseEntity.ok(restaurants);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -0,0 +1,33 @@
+package com.example.restaurantfinder.dtomodel;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.util.List;
+
+
+/**
+ * Progress of a bulk ingest job, with one entry per postcode.
+ */
+@Data
+public class BulkIngestJobDto {
+
+    private final String id;
+    private final String state;
+    private final int total;
+    private final int done;
+    private final int failed;
+    private final int inserted;
+    private final Instant startedAt;
+    private final Instant finishedAt;
+    private final List<PostcodeProgress> postcodes;
+
+    @Data
+    public static class PostcodeProgress {
+        private final String postNummer;
+        private final String state;
+        private final int pages;
+        private final int inserted;
+        private final String error;
+    }
+}
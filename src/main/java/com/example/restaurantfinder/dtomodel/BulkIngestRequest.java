@@ -0,0 +1,23 @@
+package com.example.restaurantfinder.dtomodel;
+
+import lombok.*;
+
+import java.util.List;
+
+
+/**
+ * Postcodes to pre-warm: an explicit list, an inclusive range (from..to), or both.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkIngestRequest {
+
+    private List<String> postNummers;
+    private Integer from;
+    private Integer to;
+
+    // Postcodes fetched at the same time; capped by admin.ingest.max-concurrency
+    private Integer concurrency;
+
+}
@@ -0,0 +1,96 @@
+package com.example.restaurantfinder.dtomodel;
+
+import com.example.restaurantfinder.entity.RestaurantEntity;
+
+/**
+ * Immutable, compact form of a restaurant row for long-lived in-memory copies.
+ * Compared with RestaurantDto there are no boxed Long/Integer fields, coordinates are fixed point
+ * (1e-7 degrees, the precision Google returns, ~1 cm) in ints instead of doubles, the rating is stored
+ * in tenths and the postNummer is shared through a PostNummerDictionary.
+ * Ratings that are not whole tenths are rounded to the nearest tenth. No price (null or negative)
+ * comes back as -1, the value ingest stores and RestaurantSnapshot uses.
+ */
+public record CompactRestaurant(long id, String name, String address, String postNummer,
+                                int latE7, int lngE7, byte ratingTenths, byte priceLevel) {
+
+    public static final double COORDINATE_SCALE = 1e7;
+
+    public static final long NO_ID = -1;
+    public static final byte NO_PRICE = -1;
+
+    public static CompactRestaurant of(RestaurantDto r, PostNummerDictionary postNummers) {
+        return new CompactRestaurant(
+                r.getId() == null ? NO_ID : r.getId(),
+                r.getName(),
+                r.getAddress(),
+                postNummers.intern(r.getPostNummer()),
+                toFixed(r.getLat()),
+                toFixed(r.getLng()),
+                toTenths(r.getRating()),
+                toPrice(r.getPriceLevel()));
+    }
+
+    // placeId only matters for de-duplicating writes and is not kept
+    public static CompactRestaurant of(RestaurantEntity e, PostNummerDictionary postNummers) {
+        return new CompactRestaurant(
+                e.getId() == null ? NO_ID : e.getId(),
+                e.getName(),
+                e.getAddress(),
+                postNummers.intern(e.getPostNummer()),
+                toFixed(e.getLat()),
+                toFixed(e.getLng()),
+                toTenths(e.getRating()),
+                toPrice(e.getPriceLevel()));
+    }
+
+    public RestaurantDto toDto() {
+        return new RestaurantDto(
+                id == NO_ID ? null : id,
+                name,
+                address,
+                rating(),
+                lat(),
+                lng(),
+                (int) priceLevel,
+                postNummer);
+    }
+
+    public double lat() {
+        return latE7 / COORDINATE_SCALE;
+    }
+
+    public double lng() {
+        return lngE7 / COORDINATE_SCALE;
+    }
+
+    public double rating() {
+        return ratingTenths / 10.0;
+    }
+
+    // ---------------------------
+    // Encoding
+    // ---------------------------
+    public static int toFixed(double degrees) {
+        if (!(degrees >= -180 && degrees <= 180)) {
+            throw new IllegalArgumentException("Coordinate out of range: " + degrees);
+        }
+        return (int) Math.round(degrees * COORDINATE_SCALE);
+    }
+
+    public static byte toTenths(double rating) {
+        long tenths = Math.round(rating * 10);
+        if (tenths < 0 || tenths > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Rating out of range: " + rating);
+        }
+        return (byte) tenths;
+    }
+
+    // Ingest stores -1 when Google sends no price_level; any negative level means no price, like null
+    public static byte toPrice(Integer priceLevel) {
+        if (priceLevel == null || priceLevel < 0) return NO_PRICE;
+        if (priceLevel > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Price level out of range: " + priceLevel);
+        }
+        return priceLevel.byteValue();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.restaurantfinder.dtomodel;
+
+import com.example.restaurantfinder.entity.RestaurantEntity;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical postNummer strings. Rows read from the database each carry their own String copy;
+ * passing them through one dictionary leaves one instance per distinct postcode (~1,100 in Denmark).
+ */
+public final class PostNummerDictionary {
+
+    private final Map<String, String> canonical = new ConcurrentHashMap<>();
+
+    public String intern(String postNummer) {
+        if (postNummer == null) return null;
+        String key = RestaurantEntity.normalizePostNummer(postNummer);
+        return canonical.computeIfAbsent(key, k -> k);
+    }
+
+    public int size() {
+        return canonical.size();
+    }
+}
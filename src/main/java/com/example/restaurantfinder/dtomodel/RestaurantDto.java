@@ -11,6 +11,7 @@ import lombok.*;
 public class RestaurantDto {
 
 
+    private final Long id;
     private final String name;
     private final String address;
     private final double rating;
@@ -21,6 +22,11 @@ public class RestaurantDto {
 
 
     public RestaurantDto(String name, String address, double rating, double lat, double lng, Integer priceLevel, String postnummer) {
+        this(null, name, address, rating, lat, lng, priceLevel, postnummer);
+    }
+
+    public RestaurantDto(Long id, String name, String address, double rating, double lat, double lng, Integer priceLevel, String postnummer) {
+        this.id = id;
         this.name = name;
         this.address = address;
         this.rating = rating;
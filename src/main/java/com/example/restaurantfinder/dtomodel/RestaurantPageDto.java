@@ -0,0 +1,18 @@
+package com.example.restaurantfinder.dtomodel;
+
+import lombok.*;
+
+import java.util.List;
+
+
+/**
+ * One page of a keyset (seek) walk over the catalog.
+ * Pass nextAfterId as afterId to get the next page; it is null on the last page.
+ */
+@Data
+public class RestaurantPageDto {
+
+    private final List<RestaurantDto> items;
+    private final Long nextAfterId;
+
+}
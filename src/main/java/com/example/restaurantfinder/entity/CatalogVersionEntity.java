@@ -0,0 +1,26 @@
+package com.example.restaurantfinder.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+
+/**
+ * One row (id 1) counting the writes to the restaurants table. Every write bumps it in its own
+ * transaction, so a read of the table and of the version in one snapshot always agree; the catalog
+ * snapshot file records it to tell whether the table changed since.
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "catalog_version")
+public class CatalogVersionEntity {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+    private long version;
+
+}
@@ -0,0 +1,23 @@
+package com.example.restaurantfinder.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "geocode_cache")
+public class GeocodeEntity {
+
+    @Id
+    private String postNummer;
+    private double lat;
+    private double lng;
+    private Instant fetchedAt;
+
+}
@@ -0,0 +1,28 @@
+package com.example.restaurantfinder.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+
+/**
+ * When a postNummer was last fetched from Google. attemptedAt moves on every try, fetchedAt only on
+ * success, so a postcode that keeps failing does not hold the head of the refresh queue.
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "postcode_fetch", indexes = {
+        @Index(name = "idx_postcode_fetch_attempted_at", columnList = "attemptedAt")
+})
+public class PostcodeFetchEntity {
+
+    @Id
+    private String postNummer;
+    private Instant fetchedAt;
+    private Instant attemptedAt;
+
+}
@@ -1,5 +1,6 @@
 package com.example.restaurantfinder.entity;
 
+import com.example.restaurantfinder.algorithm.GeoHash;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.NoArgsConstructor;
@@ -12,15 +13,20 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "restaurants")
+@Table(name = "restaurants", indexes = {
+        @Index(name = "idx_restaurants_geohash", columnList = "geohash"),
+        @Index(name = "idx_restaurants_post_nummer", columnList = "postNummer")
+})
 public class RestaurantEntity {
 
-
+    // Pooled sequence ids so Hibernate can batch inserts (IDENTITY forces one INSERT per row)
+    public static final int ID_ALLOCATION_SIZE = 50;
 
 
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "restaurants_seq")
+    @SequenceGenerator(name = "restaurants_seq", sequenceName = "restaurants_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(unique = true)
@@ -33,6 +39,12 @@ public class RestaurantEntity {
     private double lng;
     private String postNummer;
 
+    @Column(length = GeoHash.MAX_PRECISION)
+    private String geohash;
+
+    // Hash of the fields a refresh can change (see computeContentHash); lets ingest skip unchanged rows
+    private Long contentHash;
+
     // constructors
 
     public RestaurantEntity(String name, String address, double rating, double lat, double lng, Integer priceLevel, String postNummer) {
@@ -45,4 +57,32 @@ public class RestaurantEntity {
         this.postNummer = postNummer;
     }
 
+    @PrePersist
+    @PreUpdate
+    void beforeWrite() {
+        this.postNummer = normalizePostNummer(postNummer);
+        updateGeohash();
+        this.contentHash = computeContentHash();
+    }
+
+    public void updateGeohash() {
+        this.geohash = GeoHash.encode(lat, lng, GeoHash.MAX_PRECISION);
+    }
+
+    // 64-bit FNV-1a over name, address, rating and price level: the fields ingest updates in place
+    public long computeContentHash() {
+        String content = name + '\u0000' + address + '\u0000' + rating + '\u0000' + priceLevel;
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < content.length(); i++) {
+            hash ^= content.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // Stored form of a postNummer; lookups must normalise the same way to hit the index
+    public static String normalizePostNummer(String postNummer) {
+        return postNummer == null ? null : postNummer.trim().toLowerCase();
+    }
+
 }
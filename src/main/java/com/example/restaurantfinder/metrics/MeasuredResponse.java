@@ -0,0 +1,17 @@
+package com.example.restaurantfinder.metrics;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler whose response body is timed while Spring writes it, and whose size in rows and
+ * bytes is recorded, under the given endpoint tag (see ResponseMetricsAdvice).
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MeasuredResponse {
+
+    String value();
+}
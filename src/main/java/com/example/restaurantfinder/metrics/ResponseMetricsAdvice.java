@@ -0,0 +1,51 @@
+package com.example.restaurantfinder.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Collection;
+
+/**
+ * Starts the serialisation timer of a @MeasuredResponse handler just before its message converter
+ * writes the body; ResponseMetricsFilter stops it once the body is written and adds the byte count.
+ * The body itself goes through the regular converters and content negotiation, untouched.
+ * Only successful (collection) bodies are measured, not error messages.
+ */
+@ControllerAdvice
+public class ResponseMetricsAdvice implements ResponseBodyAdvice<Object> {
+
+    static final String STARTED = ResponseMetricsAdvice.class.getName() + ".started";
+
+    record Started(String endpoint, Timer.Sample sample, int rows) {
+    }
+
+    private final RestaurantMetrics metrics;
+
+    public ResponseMetricsAdvice(RestaurantMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(MeasuredResponse.class);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType contentType,
+                                  Class<? extends HttpMessageConverter<?>> converterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body instanceof Collection<?> rows && request instanceof ServletServerHttpRequest servlet) {
+            String endpoint = returnType.getMethodAnnotation(MeasuredResponse.class).value();
+            servlet.getServletRequest().setAttribute(STARTED,
+                    new Started(endpoint, metrics.startSerialisation(), rows.size()));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.restaurantfinder.metrics;
+
+import com.example.restaurantfinder.client.GoogleApiException;
+import com.example.restaurantfinder.client.GoogleMapsClient;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Timers and summaries for the hot path, published under "restaurantfinder.*".
+ * Percentiles and histograms are configured with management.metrics.distribution.* and
+ * scraped from /actuator/prometheus.
+ */
+@Component
+public class RestaurantMetrics {
+
+    public static final String GOOGLE_REQUEST = "restaurantfinder.google.request";
+    public static final String DB_QUERY = "restaurantfinder.db.query";
+    public static final String RANKING = "restaurantfinder.ranking";
+    public static final String SERIALISATION = "restaurantfinder.serialisation";
+    public static final String RESPONSE_ROWS = "restaurantfinder.response.rows";
+    public static final String RESPONSE_BYTES = "restaurantfinder.response.bytes";
+
+    private final MeterRegistry registry;
+
+    public RestaurantMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    // ---------------------------
+    // Google (tagged by api and outcome: OK or the Google/HTTP status)
+    // ---------------------------
+    public <T> CompletableFuture<T> timeGoogle(String api, Supplier<CompletableFuture<T>> call) {
+        Timer.Sample sample = Timer.start(registry);
+        return call.get().whenComplete((result, error) -> sample.stop(Timer.builder(GOOGLE_REQUEST)
+                .tag("api", api)
+                .tag("outcome", outcome(error))
+                .register(registry)));
+    }
+
+    private static String outcome(Throwable error) {
+        if (error == null) return "OK";
+        return GoogleMapsClient.unwrap(error) instanceof GoogleApiException api ? api.getStatus() : "ERROR";
+    }
+
+    // ---------------------------
+    // Database and ranking
+    // ---------------------------
+    public <T> T timeQuery(String query, Supplier<T> call) {
+        return registry.timer(DB_QUERY, "query", query).record(call);
+    }
+
+    public <T> T timeRanking(String method, int inputSize, Supplier<T> call) {
+        return registry.timer(RANKING, "method", method, "size", sizeBucket(inputSize)).record(call);
+    }
+
+    // Order-of-magnitude buckets keep the tag cardinality fixed
+    static String sizeBucket(int n) {
+        if (n <= 100) return "100";
+        if (n <= 1_000) return "1k";
+        if (n <= 10_000) return "10k";
+        return "10k+";
+    }
+
+    // ---------------------------
+    // Responses
+    // ---------------------------
+    public Timer.Sample startSerialisation() {
+        return Timer.start(registry);
+    }
+
+    public void stopSerialisation(Timer.Sample sample, String endpoint) {
+        sample.stop(registry.timer(SERIALISATION, "endpoint", endpoint));
+    }
+
+    // For writes interleaved with other work (a streamed body between cursor reads): their summed time
+    public void recordSerialisation(String endpoint, long nanos) {
+        registry.timer(SERIALISATION, "endpoint", endpoint).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRows(String endpoint, int rows) {
+        DistributionSummary.builder(RESPONSE_ROWS)
+                .tag("endpoint", endpoint)
+                .baseUnit("rows")
+                .register(registry)
+                .record(rows);
+    }
+
+    public void recordBytes(String endpoint, long bytes) {
+        DistributionSummary.builder(RESPONSE_BYTES)
+                .tag("endpoint", endpoint)
+                .baseUnit("bytes")
+                .register(registry)
+                .record(bytes);
+    }
+}
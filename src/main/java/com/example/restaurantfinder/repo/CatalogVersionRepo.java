@@ -0,0 +1,26 @@
+package com.example.restaurantfinder.repo;
+
+
+import com.example.restaurantfinder.entity.CatalogVersionEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface CatalogVersionRepo extends JpaRepository<CatalogVersionEntity, Integer> {
+
+    // Joins the caller's transaction; the row lock is held until it commits, so bump last
+    @Modifying
+    @Transactional
+    @Query(value = "MERGE INTO catalog_version v USING (VALUES 1) s(id) ON v.id = s.id "
+            + "WHEN MATCHED THEN UPDATE SET v.version = v.version + 1 "
+            + "WHEN NOT MATCHED THEN INSERT (id, version) VALUES (1, 1)", nativeQuery = true)
+    int bump();
+
+    // 0 before the first write
+    default long current() {
+        return findById(CatalogVersionEntity.ID).map(CatalogVersionEntity::getVersion).orElse(0L);
+    }
+}
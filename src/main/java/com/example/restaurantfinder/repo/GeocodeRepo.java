@@ -0,0 +1,10 @@
+package com.example.restaurantfinder.repo;
+
+
+import com.example.restaurantfinder.entity.GeocodeEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GeocodeRepo extends JpaRepository<GeocodeEntity, String> {
+}
@@ -0,0 +1,24 @@
+package com.example.restaurantfinder.repo;
+
+
+import com.example.restaurantfinder.entity.PostcodeFetchEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface PostcodeFetchRepo extends JpaRepository<PostcodeFetchEntity, String> {
+
+    // Stalest first
+    @Query("SELECT f.postNummer FROM PostcodeFetchEntity f WHERE f.attemptedAt < :before ORDER BY f.attemptedAt")
+    List<String> findStale(Instant before, Limit limit);
+
+    // Postcodes stored before fetches were logged
+    @Query("SELECT DISTINCT r.postNummer FROM RestaurantEntity r WHERE r.postNummer IS NOT NULL "
+            + "AND r.postNummer NOT IN (SELECT f.postNummer FROM PostcodeFetchEntity f)")
+    List<String> findUntracked();
+}
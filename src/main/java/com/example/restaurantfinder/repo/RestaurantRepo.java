@@ -1,20 +1,85 @@
 package com.example.restaurantfinder.repo;
 
 
+import com.example.restaurantfinder.dtomodel.RestaurantDto;
 import com.example.restaurantfinder.entity.RestaurantEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface RestaurantRepo extends JpaRepository<RestaurantEntity, Long> {
-    boolean existsByPlaceId(String placeId);
-//    List<RestaurantEntity> findByPostNummer(String postNummer);
 
+    // Read paths select straight into RestaurantDto: no managed entities, no dirty-checking snapshots
+    String SELECT_DTO = "SELECT new com.example.restaurantfinder.dtomodel.RestaurantDto("
+            + "r.id, r.name, r.address, r.rating, r.lat, r.lng, r.priceLevel, r.postNummer) FROM RestaurantEntity r";
 
-    @Query("SELECT r FROM RestaurantEntity r WHERE LOWER(r.postNummer) LIKE LOWER(CONCAT('%', :postNummer, '%'))")
-    List<RestaurantEntity> findByPostNummer(String postNummer);
+    List<RestaurantEntity> findByPlaceIdIn(Collection<String> placeIds);
+
+    interface PlaceHash {
+        String getPlaceId();
+
+        Long getId();
+
+        String getPostNummer();
+
+        Long getContentHash();
+    }
+
+    // Change detection without hydrating entities: only rows whose hash differs are loaded
+    @Query("SELECT r.placeId AS placeId, r.id AS id, r.postNummer AS postNummer, r.contentHash AS contentHash "
+            + "FROM RestaurantEntity r WHERE r.placeId IN :placeIds")
+    List<PlaceHash> findContentHashes(Collection<String> placeIds);
+
+
+    // Exact and prefix matches on the normalised, indexed post_nummer column (see RestaurantEntity.normalizePostNummer)
+    @Query(SELECT_DTO + " WHERE r.postNummer = :postNummer ORDER BY r.id")
+    List<RestaurantDto> findDtosByPostNummer(String postNummer);
+
+    // LIKE wildcards in prefix must be escaped with a backslash; id order, as for the global snapshot
+    @Query(SELECT_DTO + " WHERE r.postNummer LIKE CONCAT(:prefix, '%') ESCAPE '\\' ORDER BY r.id")
+    List<RestaurantDto> findDtosByPostNummerPrefix(String prefix);
+
+    // id order, so a postNummer's rows filtered from it come out as findDtosByPostNummer returns them
+    @Query(SELECT_DTO + " ORDER BY r.id")
+    List<RestaurantDto> findAllDtos();
+
+    // Together with count(): cheap check that the catalog snapshot file still matches the table
+    @Query("SELECT MAX(r.id) FROM RestaurantEntity r")
+    Long findMaxId();
+
+    // Rows saved before postNummer was normalised on write
+    @Modifying
+    @Transactional
+    @Query("UPDATE RestaurantEntity r SET r.postNummer = LOWER(TRIM(r.postNummer)) WHERE r.postNummer <> LOWER(TRIM(r.postNummer))")
+    int normalizePostNummers();
+
+    // Whole catalog as a cursor-backed stream; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SELECT_DTO + " ORDER BY r.id")
+    Stream<RestaurantDto> streamAllDtos();
+
+    // Keyset (seek) pagination on the primary key
+    @Query(SELECT_DTO + " WHERE r.id > :afterId ORDER BY r.id")
+    List<RestaurantDto> findDtoPage(long afterId, Limit limit);
+
+    // Prefix scan on the indexed geohash column: returns one geohash cell (cells are [0-9a-z], no escaping needed)
+    @Query(SELECT_DTO + " WHERE r.geohash LIKE CONCAT(:prefix, '%')")
+    List<RestaurantDto> findDtosByGeohashPrefix(String prefix);
+
+    List<RestaurantEntity> findByGeohashIsNull();
 
 }
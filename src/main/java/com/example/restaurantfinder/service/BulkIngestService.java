@@ -0,0 +1,200 @@
+package com.example.restaurantfinder.service;
+
+import com.example.restaurantfinder.cache.LruCache;
+import com.example.restaurantfinder.client.GoogleMapsClient;
+import com.example.restaurantfinder.dtomodel.BulkIngestJobDto;
+import com.example.restaurantfinder.dtomodel.BulkIngestRequest;
+import com.example.restaurantfinder.entity.RestaurantEntity;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pre-warms the catalog for many postcodes (admin bulk ingest).
+ * A dispatcher thread starts one geocode -> nearby search -> save pipeline per postcode and holds a
+ * semaphore permit while it runs, so at most `concurrency` postcodes are in flight; the dispatcher
+ * blocks until a permit is free instead of queueing every request at Google.
+ * Queued and running jobs are always kept; only finished jobs go to the bounded LRU of past results.
+ */
+@Service
+public class BulkIngestService {
+
+    @Autowired
+    private RestaurantService restaurantService;
+
+    private final int maxConcurrency;
+    private final int maxPostcodes;
+
+    // Jobs run one after another on a single dispatcher
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "bulk-ingest-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, Job> active = new ConcurrentHashMap<>();
+    private final LruCache<String, Job> finished = new LruCache<>(32, Duration.ofDays(1));
+
+    public BulkIngestService(
+            @Value("${admin.ingest.max-concurrency:8}") int maxConcurrency,
+            @Value("${admin.ingest.max-postcodes:2000}") int maxPostcodes) {
+        this.maxConcurrency = maxConcurrency;
+        this.maxPostcodes = maxPostcodes;
+    }
+
+    public BulkIngestJobDto start(BulkIngestRequest request) {
+        List<String> postNummers = expand(request);
+        int concurrency = request.getConcurrency() == null ? 4 : request.getConcurrency();
+        if (concurrency < 1 || concurrency > maxConcurrency) {
+            throw new IllegalArgumentException("concurrency must be between 1 and " + maxConcurrency);
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), postNummers);
+        active.put(job.id, job);
+        dispatcher.execute(() -> run(job, concurrency));
+        return job.toDto();
+    }
+
+    public BulkIngestJobDto status(String jobId) {
+        Job job = active.get(jobId);
+        if (job == null) job = finished.get(jobId);
+        return job == null ? null : job.toDto();
+    }
+
+    // List and range merged in order, normalised and de-duplicated
+    List<String> expand(BulkIngestRequest request) {
+        Set<String> postNummers = new LinkedHashSet<>();
+        if (request.getPostNummers() != null) {
+            for (String p : request.getPostNummers()) {
+                if (p != null && !p.isBlank()) postNummers.add(RestaurantEntity.normalizePostNummer(p));
+            }
+        }
+        if (request.getFrom() != null || request.getTo() != null) {
+            if (request.getFrom() == null || request.getTo() == null || request.getFrom() > request.getTo()) {
+                throw new IllegalArgumentException("from and to must both be set, with from <= to");
+            }
+            if (request.getTo() - request.getFrom() >= maxPostcodes) {
+                throw new IllegalArgumentException("At most " + maxPostcodes + " postcodes per job");
+            }
+            for (int p = request.getFrom(); p <= request.getTo(); p++) {
+                postNummers.add(String.valueOf(p));
+            }
+        }
+        if (postNummers.isEmpty()) {
+            throw new IllegalArgumentException("No postcodes given");
+        }
+        if (postNummers.size() > maxPostcodes) {
+            throw new IllegalArgumentException("At most " + maxPostcodes + " postcodes per job");
+        }
+        return new ArrayList<>(postNummers);
+    }
+
+    // ---------------------------
+    // Dispatch
+    // ---------------------------
+    private void run(Job job, int concurrency) {
+        Semaphore permits = new Semaphore(concurrency);
+        job.state = "RUNNING";
+        System.out.println("Bulk ingest " + job.id + ": " + job.progress.size() + " postcodes, concurrency " + concurrency);
+
+        try {
+            for (Progress progress : job.progress.values()) {
+                permits.acquire();
+                progress.state = "RUNNING";
+                try {
+                    restaurantService.fetchAndSaveRestaurantPages(progress.postNummer, page -> {
+                                progress.pages.incrementAndGet();
+                                progress.inserted.addAndGet(page.size());
+                            })
+                            .whenComplete((done, error) -> finish(progress, error, permits));
+                } catch (RuntimeException e) {
+                    finish(progress, e, permits);
+                }
+            }
+            // Wait for the last pipelines
+            permits.acquire(concurrency);
+            job.state = "DONE";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.state = "CANCELLED";
+        } finally {
+            job.finishedAt = Instant.now();
+            // Into the finished cache before leaving the active map, so a poll never misses it
+            finished.put(job.id, job);
+            active.remove(job.id);
+            System.out.println("Bulk ingest " + job.id + " " + job.state.toLowerCase());
+        }
+    }
+
+    private static void finish(Progress progress, Throwable error, Semaphore permits) {
+        if (error == null) {
+            progress.state = "DONE";
+        } else {
+            progress.state = "FAILED";
+            progress.error = GoogleMapsClient.unwrap(error).getMessage();
+        }
+        permits.release();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    // ---------------------------
+    // Job state (written by the pipelines, read by status requests)
+    // ---------------------------
+    private static final class Progress {
+        final String postNummer;
+        volatile String state = "QUEUED";
+        volatile String error;
+        final AtomicInteger pages = new AtomicInteger();
+        final AtomicInteger inserted = new AtomicInteger();
+
+        Progress(String postNummer) {
+            this.postNummer = postNummer;
+        }
+    }
+
+    private static final class Job {
+        final String id;
+        final Instant startedAt = Instant.now();
+        final Map<String, Progress> progress = new LinkedHashMap<>();
+        volatile String state = "QUEUED";
+        volatile Instant finishedAt;
+
+        Job(String id, List<String> postNummers) {
+            this.id = id;
+            for (String p : postNummers) progress.put(p, new Progress(p));
+        }
+
+        BulkIngestJobDto toDto() {
+            List<BulkIngestJobDto.PostcodeProgress> postcodes = new ArrayList<>(progress.size());
+            int done = 0, failed = 0, inserted = 0;
+            for (Progress p : progress.values()) {
+                String s = p.state;
+                if ("DONE".equals(s)) done++;
+                if ("FAILED".equals(s)) failed++;
+                inserted += p.inserted.get();
+                postcodes.add(new BulkIngestJobDto.PostcodeProgress(p.postNummer, s, p.pages.get(), p.inserted.get(), p.error));
+            }
+            return new BulkIngestJobDto(id, state, progress.size(), done, failed, inserted, startedAt, finishedAt, postcodes);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.restaurantfinder.service;
+
+import com.example.restaurantfinder.algorithm.RestaurantSnapshot;
+import com.example.restaurantfinder.algorithm.SnapshotFile;
+import com.example.restaurantfinder.repo.CatalogVersionRepo;
+import com.example.restaurantfinder.repo.RestaurantRepo;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Keeps a copy of the global catalog snapshot on disk (SnapshotFile) for a fast warm start.
+ * At startup the file is read and installed in the catalog if its row count, max id and catalog
+ * version still match the restaurants table (all three are index or single-row lookups, whatever the
+ * catalog size); otherwise it is ignored and the catalog loads from H2 as before.
+ * The file is rewritten every catalog.snapshot.write-interval and on shutdown, when the catalog changed.
+ * H2 stays the source of truth: the file is only a cache of it.
+ */
+@Component
+public class CatalogSnapshotStore {
+
+    private final RestaurantCatalog catalog;
+    private final RestaurantRepo repository;
+    private final CatalogVersionRepo catalogVersion;
+    private final boolean enabled;
+    private final Path path;
+
+    // The rows and the catalog version are read in one snapshot of H2, so the file is never
+    // labelled with a version that belongs to other rows
+    private final TransactionTemplate consistentRead;
+
+    // catalog.writeCount() when the file was last written or loaded
+    private volatile long writtenAt = -1;
+
+    public CatalogSnapshotStore(
+            RestaurantCatalog catalog,
+            RestaurantRepo repository,
+            CatalogVersionRepo catalogVersion,
+            PlatformTransactionManager transactionManager,
+            @Value("${catalog.snapshot.enabled:true}") boolean enabled,
+            @Value("${catalog.snapshot.path:data/catalog.snapshot}") Path path) {
+        this.catalog = catalog;
+        this.repository = repository;
+        this.catalogVersion = catalogVersion;
+        this.enabled = enabled;
+        this.path = path;
+        this.consistentRead = new TransactionTemplate(transactionManager);
+        consistentRead.setReadOnly(true);
+        consistentRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        load();
+    }
+
+    /** Loads the snapshot file into the catalog; returns whether it was used. */
+    public boolean load() {
+        if (!enabled || !Files.isRegularFile(path)) return false;
+
+        long start = System.nanoTime();
+        long writeCount = catalog.writeCount();
+        try {
+            SnapshotFile.Header header = SnapshotFile.readHeader(path);
+            long rows = repository.count();
+            Long maxId = repository.findMaxId();
+            if (header.rows() != rows || header.maxId() != (maxId == null ? 0 : maxId)) {
+                System.out.println("Catalog snapshot " + path + " is stale (" + header.rows() + " rows, H2 has " + rows + "), ignoring it");
+                return false;
+            }
+            if (header.catalogVersion() != catalogVersion.current()) {
+                System.out.println("Catalog snapshot " + path + " is stale (restaurants updated since it was written), ignoring it");
+                return false;
+            }
+
+            RestaurantSnapshot snapshot = SnapshotFile.read(path);
+            if (!catalog.seed(snapshot, writeCount)) return false;
+            writtenAt = writeCount;
+            System.out.println("Loaded catalog snapshot: " + snapshot.size() + " restaurants in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return true;
+        } catch (IOException e) {
+            System.out.println("Could not read catalog snapshot " + path + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Scheduled(initialDelayString = "${catalog.snapshot.write-interval:PT10M}",
+            fixedDelayString = "${catalog.snapshot.write-interval:PT10M}")
+    public void writePeriodically() {
+        writeIfChanged();
+    }
+
+    @PreDestroy
+    void writeOnShutdown() {
+        writeIfChanged();
+    }
+
+    void writeIfChanged() {
+        if (enabled && catalog.writeCount() != writtenAt) {
+            write();
+        }
+    }
+
+    /** Writes the restaurants table, as one consistent read of H2, to the file; returns whether it succeeded. */
+    public boolean write() {
+        // The file must only hold committed rows; the next run writes it once the buffer has drained
+        if (catalog.hasPendingWrites()) return false;
+        long writeCount = catalog.writeCount();
+        try {
+            VersionedSnapshot read = consistentRead.execute(status -> new VersionedSnapshot(
+                    RestaurantSnapshot.of(repository.findAllDtos()), catalogVersion.current()));
+            RestaurantSnapshot snapshot = read.snapshot();
+            SnapshotFile.write(snapshot, read.catalogVersion(), path);
+            writtenAt = writeCount;
+            System.out.println("Wrote catalog snapshot: " + snapshot.size() + " restaurants to " + path);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Could not write catalog snapshot " + path + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private record VersionedSnapshot(RestaurantSnapshot snapshot, long catalogVersion) {
+    }
+}
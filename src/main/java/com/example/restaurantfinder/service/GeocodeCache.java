@@ -0,0 +1,142 @@
+package com.example.restaurantfinder.service;
+
+import com.example.restaurantfinder.cache.LruCache;
+import com.example.restaurantfinder.client.GoogleApiException;
+import com.example.restaurantfinder.client.GoogleMapsClient;
+import com.example.restaurantfinder.entity.GeocodeEntity;
+import com.example.restaurantfinder.repo.GeocodeRepo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Two-tier cache for postNummer -> coordinates.
+ * Tier 1 is a bounded in-memory LRU, tier 2 the geocode_cache table in H2.
+ * When Google fails, the last known coordinates are served even if expired.
+ * Postcodes that geocode to nothing are cached negatively for geocode.cache.negative-ttl.
+ */
+@Component
+public class GeocodeCache {
+
+    private final GeocodeRepo repository;
+    private final LruCache<String, double[]> memory;
+    private final Duration persistedTtl;
+
+    // postNummers Google could not geocode (ZERO_RESULTS), remembered briefly
+    private final LruCache<String, String> negative;
+
+    private final AtomicLong dbHits = new AtomicLong();
+    private final AtomicLong remoteCalls = new AtomicLong();
+    private final AtomicLong staleServed = new AtomicLong();
+
+    public GeocodeCache(
+            GeocodeRepo repository,
+            @Value("${geocode.cache.max-size:1024}") int maxSize,
+            @Value("${geocode.cache.memory-ttl:PT24H}") Duration memoryTtl,
+            @Value("${geocode.cache.persisted-ttl:P30D}") Duration persistedTtl,
+            @Value("${geocode.cache.negative-ttl:PT10M}") Duration negativeTtl) {
+        this.repository = repository;
+        this.memory = new LruCache<>(maxSize, memoryTtl);
+        this.persistedTtl = persistedTtl;
+        this.negative = new LruCache<>(maxSize, negativeTtl);
+    }
+
+    public double[] get(String postNummer, Function<String, double[]> loader) {
+        CompletableFuture<double[]> result = getAsync(postNummer, key -> {
+            try {
+                return CompletableFuture.completedFuture(loader.apply(key));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            throw GoogleMapsClient.unwrap(e);
+        }
+    }
+
+    /**
+     * Non-blocking variant: cache hits complete immediately, a miss completes when the loader does.
+     */
+    public CompletableFuture<double[]> getAsync(String postNummer, Function<String, CompletableFuture<double[]>> loader) {
+        String key = postNummer.trim();
+
+        double[] cached = memory.get(key);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+
+        String unknown = negative.get(key);
+        if (unknown != null) {
+            return CompletableFuture.failedFuture(new GoogleApiException(unknown, "No results found for postal code: " + key));
+        }
+
+        Optional<GeocodeEntity> persisted = repository.findById(key);
+        if (persisted.isPresent() && isFresh(persisted.get())) {
+            dbHits.incrementAndGet();
+            double[] coords = {persisted.get().getLat(), persisted.get().getLng()};
+            memory.put(key, coords);
+            return CompletableFuture.completedFuture(coords);
+        }
+
+        remoteCalls.incrementAndGet();
+        CompletableFuture<double[]> remote;
+        try {
+            remote = loader.apply(key);
+        } catch (RuntimeException e) {
+            remote = CompletableFuture.failedFuture(e);
+        }
+
+        return remote.handle((coords, error) -> {
+            if (error == null) {
+                repository.save(new GeocodeEntity(key, coords[0], coords[1], Instant.now()));
+                memory.put(key, coords);
+                return coords;
+            }
+
+            RuntimeException e = GoogleMapsClient.unwrap(error);
+            double[] stale = memory.getStale(key);
+            if (stale == null && persisted.isPresent()) {
+                stale = new double[]{persisted.get().getLat(), persisted.get().getLng()};
+            }
+            if (stale == null) {
+                if (e instanceof GoogleApiException api && "ZERO_RESULTS".equals(api.getStatus())) {
+                    negative.put(key, api.getStatus());
+                }
+                throw e;
+            }
+
+            staleServed.incrementAndGet();
+            System.err.println("Geocoding failed for " + key + ", serving cached coordinates: " + e.getMessage());
+            return stale;
+        });
+    }
+
+    private boolean isFresh(GeocodeEntity entity) {
+        return entity.getFetchedAt() != null
+                && entity.getFetchedAt().plus(persistedTtl).isAfter(Instant.now());
+    }
+
+    public Map<String, Object> stats() {
+        LruCache.Stats mem = memory.stats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("memoryHits", mem.hits());
+        stats.put("memoryMisses", mem.misses());
+        stats.put("memoryEvictions", mem.evictions());
+        stats.put("memorySize", mem.size());
+        stats.put("dbHits", dbHits.get());
+        stats.put("remoteCalls", remoteCalls.get());
+        stats.put("staleServed", staleServed.get());
+        stats.put("negativeHits", negative.stats().hits());
+        stats.put("negativeSize", negative.stats().size());
+        return stats;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.restaurantfinder.service;
+
+import com.example.restaurantfinder.dtomodel.RestaurantDto;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Rows accepted by the write-behind buffer but not yet committed, by placeId.
+ * The catalog lays them over what it reads from H2, so they are visible before they are written.
+ */
+@Component
+public class PendingRestaurants {
+
+    /** storedId is the id of the row an update replaces, or null for a new restaurant (whose dto has no id yet). */
+    public record Row(String placeId, Long storedId, RestaurantDto dto) {
+    }
+
+    private final Map<String, Row> rows = new ConcurrentHashMap<>();
+
+    // Bumped when the writer assigns ids or removes written rows, the changes that go with a commit;
+    // lets overlay() tell whether a commit overlapped its query. A put does not: H2 does not have the row yet
+    private final AtomicLong version = new AtomicLong();
+
+    // Held (write) by the writer from its transaction until its rows are removed; overlay() falls back to
+    // the read side when optimistic attempts keep overlapping commits
+    private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+
+    public static final int OPTIMISTIC_ATTEMPTS = 3;
+
+    public void put(Row row) {
+        rows.put(row.placeId(), row);
+    }
+
+    // Only if no newer version arrived in the meantime
+    public void remove(Row row) {
+        if (rows.remove(row.placeId(), row)) version.incrementAndGet();
+    }
+
+    /**
+     * Gives a new restaurant the id it was just inserted with (before the insert commits), so loads after
+     * the commit replace the stored row instead of listing it twice. Returns the replacement, or null
+     * if a newer version of the row arrived meanwhile.
+     */
+    public Row assignId(Row row, long id) {
+        RestaurantDto d = row.dto();
+        Row withId = new Row(row.placeId(), id, new RestaurantDto(id, d.getName(), d.getAddress(), d.getRating(),
+                d.getLat(), d.getLng(), d.getPriceLevel(), d.getPostNummer()));
+        if (!rows.replace(row.placeId(), row, withId)) return null;
+        version.incrementAndGet();
+        return withId;
+    }
+
+    /** Runs a write-behind commit (the transaction, assignId and the removal of its rows) as one step for overlay(). */
+    public <T> T commit(Supplier<T> write) {
+        commitLock.writeLock().lock();
+        try {
+            return write.get();
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return rows.isEmpty();
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Stored rows with pending updates applied, followed by the pending rows not among them (new
+     * restaurants, and inserts not committed yet) whose postNummer matches. An update keeps the stored
+     * row's id, position, postNummer and coordinates, as the ingest update does.
+     * <p>
+     * The writer commits a batch between assigning its ids and removing its rows, one at a time, so a
+     * query that overlaps those changes may see the commit while the rows say otherwise (a stale stored
+     * row next to its already removed update). The query is repeated while a commit overlaps it, a few
+     * times, and then run with commits held off.
+     */
+    public List<RestaurantDto> overlay(Supplier<List<RestaurantDto>> query, Predicate<String> postNummerMatches) {
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long before = version.get();
+            List<RestaurantDto> stored = query.get();
+            List<Row> current = new ArrayList<>(rows.values());
+            if (version.get() == before) return overlay(stored, current, postNummerMatches);
+        }
+        commitLock.readLock().lock();
+        try {
+            List<RestaurantDto> stored = query.get();
+            return overlay(stored, new ArrayList<>(rows.values()), postNummerMatches);
+        } finally {
+            commitLock.readLock().unlock();
+        }
+    }
+
+    private static List<RestaurantDto> overlay(List<RestaurantDto> stored, List<Row> current,
+                                               Predicate<String> postNummerMatches) {
+        if (current.isEmpty()) return stored;
+
+        Map<Long, RestaurantDto> updates = new HashMap<>();
+        List<RestaurantDto> added = new ArrayList<>();
+        for (Row row : current) {
+            if (row.storedId() != null) {
+                updates.put(row.storedId(), row.dto());
+            } else if (postNummerMatches.test(row.dto().getPostNummer())) {
+                added.add(row.dto());
+            }
+        }
+
+        List<RestaurantDto> merged = new ArrayList<>(stored.size() + added.size());
+        for (RestaurantDto r : stored) {
+            RestaurantDto update = r.getId() == null ? null : updates.remove(r.getId());
+            merged.add(update == null ? r : new RestaurantDto(r.getId(), update.getName(), update.getAddress(),
+                    update.getRating(), r.getLat(), r.getLng(), update.getPriceLevel(), r.getPostNummer()));
+        }
+        for (RestaurantDto unmatched : updates.values()) {
+            if (postNummerMatches.test(unmatched.getPostNummer())) merged.add(unmatched);
+        }
+        merged.addAll(added);
+        return merged;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.restaurantfinder.service;
+
+import com.example.restaurantfinder.client.GoogleMapsClient;
+import com.example.restaurantfinder.entity.PostcodeFetchEntity;
+import com.example.restaurantfinder.repo.PostcodeFetchRepo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Re-fetches postcodes whose data is older than refresh.max-age, stalest first, at most
+ * refresh.budget postcodes every refresh.interval. Runs on the scheduler thread through the same
+ * single-flight fetch as the cold path; ingest diffs each page by placeId and content hash and only
+ * writes new and changed rows, so readers keep the current snapshot until a changed page commits.
+ * Off by default, and skipped while no Google API key is configured, since every refresh is paid traffic.
+ */
+@Service
+public class PostcodeRefresher {
+
+    public record Run(int postcodes, int refreshed, int failed, int inserted) {
+    }
+
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @Autowired
+    private PostcodeFetchRepo fetchLog;
+
+    @Autowired
+    private GoogleMapsClient googleMapsClient;
+
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final int budget;
+    private volatile boolean reportedNoKey;
+
+    public PostcodeRefresher(
+            @Value("${refresh.enabled:false}") boolean enabled,
+            @Value("${refresh.max-age:P1D}") Duration maxAge,
+            @Value("${refresh.budget:5}") int budget) {
+        this.enabled = enabled;
+        this.maxAge = maxAge;
+        this.budget = budget;
+    }
+
+    @Scheduled(initialDelayString = "${refresh.interval:PT5M}", fixedDelayString = "${refresh.interval:PT5M}")
+    public void refreshScheduled() {
+        if (!enabled) return;
+        if (!googleMapsClient.isConfigured()) {
+            if (!reportedNoKey) {
+                reportedNoKey = true;
+                System.out.println("Refresh skipped: no Google API key configured");
+            }
+            return;
+        }
+        refreshStale();
+    }
+
+    public Run refreshStale() {
+        trackUntracked();
+        List<String> stale = fetchLog.findStale(Instant.now().minus(maxAge), Limit.of(budget));
+        if (stale.isEmpty()) return new Run(0, 0, 0, 0);
+
+        int refreshed = 0, failed = 0;
+        AtomicInteger inserted = new AtomicInteger();
+        for (String postNummer : stale) {
+            try {
+                restaurantService.fetchAndSaveRestaurantPages(postNummer, page -> inserted.addAndGet(page.size())).join();
+                refreshed++;
+            } catch (CompletionException e) {
+                failed++;
+                System.err.println("Refresh of " + postNummer + " failed: " + GoogleMapsClient.unwrap(e).getMessage());
+            }
+        }
+
+        System.out.println("Refreshed " + refreshed + " of " + stale.size() + " stale postcodes ("
+                + failed + " failed, " + inserted.get() + " new restaurants)");
+        return new Run(stale.size(), refreshed, failed, inserted.get());
+    }
+
+    // Postcodes stored before the fetch log existed are treated as never fetched
+    private void trackUntracked() {
+        List<PostcodeFetchEntity> untracked = fetchLog.findUntracked().stream()
+                .map(p -> PostcodeFetchEntity.builder().postNummer(p).attemptedAt(Instant.EPOCH).build())
+                .toList();
+        if (!untracked.isEmpty()) fetchLog.saveAll(untracked);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.restaurantfinder.service;
+
+import com.example.restaurantfinder.cache.LruCache;
+import com.example.restaurantfinder.dtomodel.CompactRestaurant;
+import com.example.restaurantfinder.dtomodel.PostNummerDictionary;
+import com.example.restaurantfinder.dtomodel.RestaurantDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of ranked /api/restaurants/sort pages.
+ * The user location is snapped to a grid cell (ranking.cache.location-precision degrees), and the
+ * ranking is computed from the cell centre, so users in the same cell share one entry.
+ * Entries are dropped when the rows of their postNummer change.
+ * Rankings live for up to ranking.cache.ttl, so they are held as CompactRestaurant rows (postNummers
+ * shared through one dictionary) and turned back into RestaurantDto on a hit.
+ */
+@Component
+public class RankingCache {
+
+    public record Key(String postNummer, String method, Double lat, Double lng,
+                      Integer k, Integer limit, int offset) {
+    }
+
+    private final LruCache<Key, List<CompactRestaurant>> results;
+    private final PostNummerDictionary postNummers = new PostNummerDictionary();
+    private final double locationPrecision;
+
+    // Stamp of the last invalidation per postNummer (and of the last clear);
+    // a ranking computed before a write is not stored after it
+    private final Map<String, Long> invalidatedAt = new HashMap<>();
+    private long clearedAt;
+    private long stamp;
+
+    public RankingCache(
+            @Value("${ranking.cache.max-size:2048}") int maxSize,
+            @Value("${ranking.cache.ttl:PT1H}") Duration ttl,
+            @Value("${ranking.cache.location-precision:0.001}") double locationPrecision) {
+        this.results = new LruCache<>(maxSize, ttl);
+        this.locationPrecision = locationPrecision;
+    }
+
+    /** Key with the location snapped to its cell centre; location and k are only kept where the method uses them. */
+    public Key key(String postNummer, String method, Double lat, Double lng, Integer k, Integer limit, int offset) {
+        boolean located = method.equals("distance") || method.equals("weighted") || method.equals("knn");
+        return new Key(postNummer, method,
+                located ? quantise(lat) : null,
+                located ? quantise(lng) : null,
+                method.equals("knn") ? k : null,
+                limit, offset);
+    }
+
+    private Double quantise(Double degrees) {
+        if (degrees == null) return null;
+        return (Math.floor(degrees / locationPrecision) + 0.5) * locationPrecision;
+    }
+
+    public synchronized long version(String postNummer) {
+        return Math.max(clearedAt, invalidatedAt.getOrDefault(postNummer, 0L));
+    }
+
+    public List<RestaurantDto> get(Key key) {
+        List<CompactRestaurant> ranked = results.get(key);
+        if (ranked == null) return null;
+        List<RestaurantDto> dtos = new ArrayList<>(ranked.size());
+        for (CompactRestaurant r : ranked) dtos.add(r.toDto());
+        return dtos;
+    }
+
+    // Stored only if the postNummer has not been invalidated since `version` was read
+    public synchronized void put(Key key, List<RestaurantDto> ranked, long version) {
+        if (version(key.postNummer()) == version) {
+            List<CompactRestaurant> compact = new ArrayList<>(ranked.size());
+            for (RestaurantDto r : ranked) compact.add(CompactRestaurant.of(r, postNummers));
+            results.put(key, List.copyOf(compact));
+        }
+    }
+
+    public synchronized void invalidate(String postNummer) {
+        invalidatedAt.put(postNummer, ++stamp);
+        results.invalidateIf(key -> key.postNummer().equals(postNummer));
+    }
+
+    public synchronized void clear() {
+        clearedAt = ++stamp;
+        invalidatedAt.clear();
+        results.clear();
+    }
+
+    public Map<String, Object> stats() {
+        LruCache.Stats s = results.stats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", s.hits());
+        stats.put("misses", s.misses());
+        stats.put("hitRatio", s.hitRatio());
+        stats.put("evictions", s.evictions());
+        stats.put("size", s.size());
+        return stats;
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.restaurantfinder.service;
+
+import com.example.restaurantfinder.algorithm.RestaurantSnapshot;
+import com.example.restaurantfinder.cache.LruCache;
+import com.example.restaurantfinder.entity.RestaurantEntity;
+import com.example.restaurantfinder.metrics.RestaurantMetrics;
+import com.example.restaurantfinder.repo.RestaurantRepo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In-memory columnar snapshots of the stored restaurants: one for the whole catalog
+ * and one per postNummer query, loaded through the indexed post_nummer column.
+ * Rebuilt lazily after a write. Once the global snapshot is loaded (or seeded from the
+ * snapshot file at startup), exact postNummer snapshots are filtered from it instead of queried.
+ * The postNummer snapshots are keyed on request input, so they are kept in a bounded LRU
+ * (catalog.postcode-snapshots.max-size); prefixes shorter than catalog.prefix.min-length would
+ * copy most of the catalog and are filtered from the global snapshot instead of cached.
+ * Rows still waiting in the write-behind buffer (PendingRestaurants) are included in every load.
+ */
+@Component
+public class RestaurantCatalog {
+
+    // Everything loaded between two writes; an invalidation replaces the whole generation,
+    // so a load that races with a write can never leave a stale snapshot behind
+    private final class Generation {
+        private volatile RestaurantSnapshot global;
+        private final LruCache<String, RestaurantSnapshot> byPostNummer = new LruCache<>(maxSnapshots, snapshotTtl);
+    }
+
+    private final RestaurantRepo repository;
+    private final RestaurantMetrics metrics;
+
+    // Write-behind rows not yet in H2, laid over every load
+    private final PendingRestaurants pending;
+
+    private final int maxSnapshots;
+    private final Duration snapshotTtl;
+    private final int minPrefixLength;
+
+    private volatile Generation current;
+
+    // Number of invalidations so far; lets a snapshot read outside the catalog detect a write that raced with it
+    private final AtomicLong writes = new AtomicLong();
+
+    public RestaurantCatalog(
+            RestaurantRepo repository,
+            RestaurantMetrics metrics,
+            PendingRestaurants pending,
+            @Value("${catalog.postcode-snapshots.max-size:1024}") int maxSnapshots,
+            @Value("${catalog.postcode-snapshots.ttl:PT1H}") Duration snapshotTtl,
+            @Value("${catalog.prefix.min-length:2}") int minPrefixLength) {
+        this.repository = repository;
+        this.metrics = metrics;
+        this.pending = pending;
+        this.maxSnapshots = maxSnapshots;
+        this.snapshotTtl = snapshotTtl;
+        this.minPrefixLength = minPrefixLength;
+    }
+
+    private Generation generation() {
+        Generation generation = current;
+        if (generation == null) {
+            synchronized (this) {
+                generation = current;
+                if (generation == null) {
+                    generation = new Generation();
+                    current = generation;
+                }
+            }
+        }
+        return generation;
+    }
+
+    // Loaded outside the generation lock, so readers of other snapshots and invalidations never wait
+    // for the query; installed only if no write was counted meanwhile (as in cached)
+    public RestaurantSnapshot global() {
+        Generation generation = generation();
+        RestaurantSnapshot snapshot = generation.global;
+        if (snapshot != null) return snapshot;
+
+        long writeCount = writes.get();
+        snapshot = RestaurantSnapshot.of(pending.overlay(
+                () -> metrics.timeQuery("findAllDtos", repository::findAllDtos), p -> true));
+        synchronized (generation) {
+            if (generation.global != null) return generation.global;
+            if (writes.get() == writeCount) generation.global = snapshot;
+        }
+        return snapshot;
+    }
+
+    // Snapshots then hold rows H2 does not have yet
+    public boolean hasPendingWrites() {
+        return !pending.isEmpty();
+    }
+
+    public long writeCount() {
+        return writes.get();
+    }
+
+    /**
+     * Installs a global snapshot loaded elsewhere (the snapshot file), unless a write happened after
+     * `writeCount` was read or a global snapshot is already loaded. Returns whether it was installed.
+     */
+    public boolean seed(RestaurantSnapshot snapshot, long writeCount) {
+        Generation generation = generation();
+        synchronized (generation) {
+            if (writes.get() != writeCount || generation.global != null) return false;
+            generation.global = snapshot;
+            return true;
+        }
+    }
+
+    // Exact postNummer match
+    public RestaurantSnapshot forPostNummer(String postNummer) {
+        String key = RestaurantEntity.normalizePostNummer(postNummer);
+        Generation generation = generation();
+        return cached(generation, "=" + key, () -> {
+            // Both the global snapshot and the query are in id order
+            RestaurantSnapshot global = generation.global;
+            if (global != null) return global.filterByPostNummer(key::equals);
+            return RestaurantSnapshot.of(pending.overlay(() -> metrics.timeQuery("findByPostNummer",
+                    () -> repository.findDtosByPostNummer(key)), key::equals));
+        });
+    }
+
+    // All postNummers starting with the prefix
+    public RestaurantSnapshot forPostNummerPrefix(String prefix) {
+        String key = RestaurantEntity.normalizePostNummer(prefix);
+        if (key.isEmpty()) return global();
+        if (key.length() < minPrefixLength) {
+            return global().filterByPostNummer(p -> p != null && p.startsWith(key));
+        }
+        return cached(generation(), "^" + key,
+                () -> RestaurantSnapshot.of(pending.overlay(() -> metrics.timeQuery("findByPostNummerPrefix",
+                        () -> repository.findDtosByPostNummerPrefix(escapeLike(key))),
+                        p -> p != null && p.startsWith(key))));
+    }
+
+    /**
+     * Cached snapshot, or a fresh load that is cached unless a write happened while it ran.
+     * Two requests missing the same key at once may both load it; the later put wins.
+     */
+    private RestaurantSnapshot cached(Generation generation, String key, Supplier<RestaurantSnapshot> load) {
+        RestaurantSnapshot snapshot = generation.byPostNummer.get(key);
+        if (snapshot != null) return snapshot;
+
+        long writeCount = writes.get();
+        snapshot = load.get();
+        // invalidate(postNummers) counts the write before removing under the same lock,
+        // so a load that began before it is either refused here or removed there
+        synchronized (generation.byPostNummer) {
+            if (writes.get() == writeCount) generation.byPostNummer.put(key, snapshot);
+        }
+        return snapshot;
+    }
+
+    /** Hit, miss and eviction counts of the current generation's postNummer snapshots */
+    public LruCache.Stats stats() {
+        return generation().byPostNummer.stats();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    // Called after writes that may touch any row (e.g. the startup backfill)
+    public synchronized void invalidate() {
+        writes.incrementAndGet();
+        current = null;
+    }
+
+    /**
+     * Called after a write that only touched rows of these postNummers: drops their exact and
+     * matching prefix snapshots plus the global one, and keeps every other postcode's snapshot.
+     * Runs after the commit; a load racing with it is counted as stale and not cached (see cached
+     * and global), or was installed first and is removed here, so no pre-write snapshot survives.
+     */
+    public void invalidate(Collection<String> postNummers) {
+        writes.incrementAndGet();
+        Generation generation = current;
+        if (generation == null) return;
+
+        synchronized (generation) {
+            generation.global = null;
+        }
+        synchronized (generation.byPostNummer) {
+            for (String postNummer : postNummers) {
+                String key = RestaurantEntity.normalizePostNummer(postNummer);
+                generation.byPostNummer.invalidate("=" + key);
+                for (int length = minPrefixLength; length <= key.length(); length++) {
+                    generation.byPostNummer.invalidate("^" + key.substring(0, length));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.restaurantfinder.service;
+
+import com.example.restaurantfinder.entity.RestaurantEntity;
+import com.example.restaurantfinder.repo.CatalogVersionRepo;
+import com.example.restaurantfinder.repo.RestaurantRepo;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PostConstruct;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes one page of Places results with a constant number of SQL round trips:
+ * one placeId IN (...) lookup of content hashes, one load of the rows whose hash differs,
+ * batched inserts for new rows and batched updates for changed ones. Unchanged rows are not loaded.
+ */
+@Service
+public class RestaurantIngestService {
+
+    public record IngestResult(List<RestaurantEntity> inserted, List<RestaurantEntity> updated) {
+    }
+
+    static final int MAX_ATTEMPTS = 3;
+
+    private final RestaurantRepo repository;
+    private final CatalogVersionRepo catalogVersion;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactions;
+
+    public RestaurantIngestService(RestaurantRepo repository, CatalogVersionRepo catalogVersion, JdbcTemplate jdbc,
+                                   PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.catalogVersion = catalogVersion;
+        this.jdbc = jdbc;
+        this.transactions = new TransactionTemplate(transactionManager);
+    }
+
+    // Rows written before ids came from restaurants_seq used IDENTITY; move the sequence past them
+    @PostConstruct
+    void alignIdSequence() {
+        try {
+            Long maxId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM restaurants", Long.class);
+            long next = (maxId == null ? 0 : maxId) + 1 + RestaurantEntity.ID_ALLOCATION_SIZE;
+            jdbc.execute("ALTER SEQUENCE restaurants_seq RESTART WITH " + next);
+        } catch (Exception e) {
+            System.err.println("Could not align restaurants_seq: " + e.getMessage());
+        }
+    }
+
+    public IngestResult ingest(String postNummer, List<JsonNode> results) {
+        return ingest(toEntities(postNummer, results));
+    }
+
+    // Set-based dedup within the page, last occurrence wins
+    public Map<String, RestaurantEntity> toEntities(String postNummer, List<JsonNode> results) {
+        Map<String, RestaurantEntity> incoming = new LinkedHashMap<>();
+        for (JsonNode r : results) {
+            RestaurantEntity entity = toEntity(r, postNummer);
+            incoming.put(entity.getPlaceId(), entity);
+        }
+        return incoming;
+    }
+
+    /** Writes new, unsaved entities keyed by placeId; each carries its own postNummer. */
+    public IngestResult ingest(Map<String, RestaurantEntity> incoming) {
+        return ingest(incoming, result -> { });
+    }
+
+    /**
+     * Same, with beforeCommit run inside the transaction once the new rows have their ids.
+     *
+     * Read-then-insert is not an upsert: two ingests of the same new placeId (bulk ingest, the refresher,
+     * write-behind) can both find it missing, and the later insert fails on the unique placeId index.
+     * The page is then retried in a new transaction, which finds the row and updates it instead.
+     * The entities passed in are copied per attempt and never become managed.
+     */
+    public IngestResult ingest(Map<String, RestaurantEntity> incoming, Consumer<IngestResult> beforeCommit) {
+        if (incoming.isEmpty()) return new IngestResult(List.of(), List.of());
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactions.execute(status -> {
+                    IngestResult result = write(copies(incoming));
+                    beforeCommit.accept(result);
+                    return result;
+                });
+            } catch (DataIntegrityViolationException e) {
+                // Inside a caller's transaction the page cannot be retried on its own
+                if (attempt == MAX_ATTEMPTS || TransactionSynchronizationManager.isActualTransactionActive()) throw e;
+                System.out.println("placeId conflict with a concurrent ingest, retrying page of " + incoming.size()
+                        + " (attempt " + (attempt + 1) + ")");
+            }
+        }
+    }
+
+    private static Map<String, RestaurantEntity> copies(Map<String, RestaurantEntity> incoming) {
+        Map<String, RestaurantEntity> copies = new LinkedHashMap<>();
+        incoming.forEach((placeId, e) -> copies.put(placeId, RestaurantEntity.builder()
+                .placeId(e.getPlaceId())
+                .name(e.getName())
+                .address(e.getAddress())
+                .rating(e.getRating())
+                .lat(e.getLat())
+                .lng(e.getLng())
+                .priceLevel(e.getPriceLevel())
+                .postNummer(e.getPostNummer())
+                .build()));
+        return copies;
+    }
+
+    private IngestResult write(Map<String, RestaurantEntity> incoming) {
+        // placeId -> stored hash (null for rows written before hashes existed)
+        Map<String, Long> storedHashes = new HashMap<>();
+        for (RestaurantRepo.PlaceHash row : repository.findContentHashes(incoming.keySet())) {
+            storedHashes.put(row.getPlaceId(), row.getContentHash());
+        }
+
+        List<RestaurantEntity> inserted = new ArrayList<>();
+        List<String> changedIds = new ArrayList<>();
+        for (RestaurantEntity candidate : incoming.values()) {
+            if (!storedHashes.containsKey(candidate.getPlaceId())) {
+                inserted.add(candidate);
+            } else if (!Objects.equals(storedHashes.get(candidate.getPlaceId()), candidate.computeContentHash())) {
+                changedIds.add(candidate.getPlaceId());
+            }
+        }
+
+        List<RestaurantEntity> updated = new ArrayList<>();
+        if (!changedIds.isEmpty()) {
+            Map<String, RestaurantEntity> existing = repository.findByPlaceIdIn(changedIds).stream()
+                    .collect(Collectors.toMap(RestaurantEntity::getPlaceId, Function.identity()));
+            for (String placeId : changedIds) {
+                RestaurantEntity stored = existing.get(placeId);
+                // Managed entity: flushed as a batched UPDATE on commit
+                if (applyChanges(stored, incoming.get(placeId))) {
+                    updated.add(stored);
+                } else {
+                    // Old row without a hash: store it so the next page skips the row
+                    stored.setContentHash(stored.computeContentHash());
+                }
+            }
+        }
+
+        repository.saveAll(inserted);
+        // Constraint violations surface here, inside the retry, rather than at commit
+        repository.flush();
+        if (!inserted.isEmpty() || !updated.isEmpty()) catalogVersion.bump();
+        return new IngestResult(inserted, updated);
+    }
+
+    private static boolean applyChanges(RestaurantEntity stored, RestaurantEntity candidate) {
+        boolean changed = false;
+        if (stored.getRating() != candidate.getRating()) {
+            stored.setRating(candidate.getRating());
+            changed = true;
+        }
+        if (!Objects.equals(stored.getPriceLevel(), candidate.getPriceLevel())) {
+            stored.setPriceLevel(candidate.getPriceLevel());
+            changed = true;
+        }
+        if (!Objects.equals(stored.getName(), candidate.getName())) {
+            stored.setName(candidate.getName());
+            changed = true;
+        }
+        if (!Objects.equals(stored.getAddress(), candidate.getAddress())) {
+            stored.setAddress(candidate.getAddress());
+            changed = true;
+        }
+        return changed;
+    }
+
+    static RestaurantEntity toEntity(JsonNode r, String postNummer) {
+        return RestaurantEntity.builder()
+                .placeId(r.path("place_id").asText())
+                .name(r.path("name").asText())
+                .address(r.path("vicinity").asText(""))
+                .rating(r.path("rating").asDouble(0.0))
+                .lat(r.path("geometry").path("location").path("lat").asDouble())
+                .lng(r.path("geometry").path("location").path("lng").asDouble())
+                .priceLevel(r.path("price_level").asInt(-1))
+                .postNummer(postNummer)
+                .build();
+    }
+}
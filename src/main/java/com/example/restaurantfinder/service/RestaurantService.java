@@ -1,20 +1,36 @@
 package com.example.restaurantfinder.service;
 
 import com.example.restaurantfinder.dtomodel.RestaurantDto;
+import com.example.restaurantfinder.dtomodel.RestaurantPageDto;
 import com.example.restaurantfinder.algorithm.AlgorithmPipeline;
+import com.example.restaurantfinder.algorithm.GeoHash;
+import com.example.restaurantfinder.algorithm.RestaurantSnapshot;
+import com.example.restaurantfinder.client.GoogleMapsClient;
+import com.example.restaurantfinder.entity.PostcodeFetchEntity;
 import com.example.restaurantfinder.entity.RestaurantEntity;
+import com.example.restaurantfinder.metrics.RestaurantMetrics;
+import com.example.restaurantfinder.repo.CatalogVersionRepo;
+import com.example.restaurantfinder.repo.PostcodeFetchRepo;
 import com.example.restaurantfinder.repo.RestaurantRepo;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class RestaurantService {
@@ -23,181 +39,244 @@ public class RestaurantService {
     @Autowired
     private RestaurantRepo repository;
 
-    private static final String API_KEY = System.getenv("GOOGLE_API_KEY");
+    @Autowired
+    private CatalogVersionRepo catalogVersion;
 
+    @Autowired
+    private GeocodeCache geocodeCache;
 
-    private static final String GEOCODE_URL =  "https://maps.googleapis.com/maps/api/geocode/json";
+    @Autowired
+    private RestaurantCatalog catalog;
 
+    @Autowired
+    private RestaurantIngestService ingestService;
 
+    @Autowired
+    private GoogleMapsClient googleMaps;
 
-    private double[] geocodeZip(String postNummer) {
-        try {
-            // Check if API key is set
-            if (API_KEY == null || API_KEY.isEmpty()) {
-                throw new RuntimeException("Google API Key is not configured. Please set GOOGLE_API_KEY environment variable.");
-            }
+    @Autowired
+    private RankingCache rankingCache;
 
-            RestTemplate rest = new RestTemplate();
+    @Autowired
+    private RestaurantMetrics metrics;
 
-            String address = postNummer + " Copenhagen Denmark";
-            String encoded = URLEncoder.encode(address, StandardCharsets.UTF_8);
+    @Autowired
+    private PostcodeFetchRepo fetchLog;
 
-            String url = "https://maps.googleapis.com/maps/api/geocode/json"
-                    + "?address=" + encoded
-                    + "&key=" + API_KEY;
+    @Autowired
+    private WriteBehindBuffer writeBehind;
 
-            System.out.println("Geocode URL: " + url);
+    public static final int MAX_PAGE_SIZE = 1000;
 
-            String json = rest.getForObject(url, String.class);
-            System.out.println("Geocode response: " + json);
+    static final Set<String> SORT_METHODS = Set.of("rating", "price", "distance", "weighted", "knn");
 
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(json);
+    // postNummer -> fetch currently talking to Google
+    private final ConcurrentHashMap<String, CompletableFuture<List<RestaurantDto>>> inFlight = new ConcurrentHashMap<>();
 
-            // Check API response status
-            String status = root.path("status").asText();
-            if (!"OK".equals(status)) {
-                throw new RuntimeException("Geocoding failed with status: " + status +
-                    ". This postal code may not exist or be valid for Copenhagen, Denmark.");
-            }
+    // Nearby Search radius around the geocoded postNummer
+    static final int NEARBY_RADIUS_METERS = 2000;
 
-            JsonNode results = root.path("results");
-            if (results.size() == 0) {
-                throw new RuntimeException("No results found for postal code: " + postNummer);
-            }
 
-            JsonNode locNode = results.get(0)
-                    .path("geometry").path("location");
+    private CompletableFuture<double[]> geocodeZip(String postNummer) {
+        return geocodeCache.getAsync(postNummer, googleMaps::geocode);
+    }
+
 
-            double lat = locNode.path("lat").asDouble();
-            double lng = locNode.path("lng").asDouble();
+    /**
+     * Geocodes the postNummer, then follows every Nearby Search page and stores each page as soon
+     * as it arrives. onPage receives the newly inserted restaurants of each page, in page order.
+     * Runs on the shared HTTP client; the caller's thread is released while Google answers.
+     *
+     * Single-flight: while a fetch for the postNummer is running, further callers join it instead of
+     * calling Google again, and receive everything it stored in one onPage call when it completes.
+     */
+    public CompletableFuture<Void> fetchAndSaveRestaurantPages(String postNummer, Consumer<List<RestaurantDto>> onPage) {
 
-            System.out.println("Geocoded to: lat=" + lat + ", lng=" + lng);
+        String normalized = RestaurantEntity.normalizePostNummer(postNummer);
 
-            return new double[]{lat, lng};
+        CompletableFuture<List<RestaurantDto>> fetch = new CompletableFuture<>();
+        CompletableFuture<List<RestaurantDto>> running = inFlight.putIfAbsent(normalized, fetch);
+        if (running != null) {
+            System.out.println("Joining running fetch for " + normalized);
+            return running.thenAccept(onPage);
+        }
 
-        } catch (Exception e) {
-            System.err.println("Geocoding error for postal code " + postNummer + ": " + e.getMessage());
-            throw new RuntimeException("Failed to geocode postal code " + postNummer + ": " + e.getMessage(), e);
+        List<RestaurantDto> saved = new ArrayList<>();
+        CompletableFuture<Void> pages;
+        try {
+            pages = fetchPages(normalized, page -> {
+                saved.addAll(page);
+                onPage.accept(page);
+            });
+        } catch (RuntimeException e) {
+            pages = CompletableFuture.failedFuture(e);
+        }
+
+        pages.whenComplete((done, error) -> {
+            recordFetch(normalized, error == null);
+            inFlight.remove(normalized, fetch);
+            if (error == null) fetch.complete(List.copyOf(saved));
+            else fetch.completeExceptionally(GoogleMapsClient.unwrap(error));
+        });
+        return fetch.thenAccept(all -> { });
+    }
+
+    // Fetch log read by PostcodeRefresher; failed fetches of postcodes never fetched are not logged
+    private void recordFetch(String postNummer, boolean succeeded) {
+        try {
+            Instant now = Instant.now();
+            PostcodeFetchEntity entry = fetchLog.findById(postNummer).orElse(null);
+            if (entry == null) {
+                if (!succeeded) return;
+                entry = PostcodeFetchEntity.builder().postNummer(postNummer).build();
+            }
+            entry.setAttemptedAt(now);
+            if (succeeded) entry.setFetchedAt(now);
+            fetchLog.save(entry);
+        } catch (RuntimeException e) {
+            System.err.println("Could not record fetch of " + postNummer + ": " + e.getMessage());
         }
     }
 
+    private CompletableFuture<Void> fetchPages(String postNummer, Consumer<List<RestaurantDto>> onPage) {
 
+        System.out.println("Geocoding Zip: " + postNummer);
 
+        return geocodeZip(postNummer)
+                .thenCompose(coords -> {
+                    System.out.println("Coordinates: " + coords[0] + ", " + coords[1]);
+                    return googleMaps.nearbySearchPages(coords[0], coords[1], NEARBY_RADIUS_METERS,
+                            results -> onPage.accept(save(postNummer, results)));
+                })
+                .thenAccept(pages -> System.out.println("Read " + pages + " Nearby Search page(s) for " + postNummer));
+    }
 
+    // All pages, collected
+    public CompletableFuture<List<RestaurantDto>> fetchAndSaveRestaurantsAsync(String postNummer) {
+        List<RestaurantDto> saved = Collections.synchronizedList(new ArrayList<>());
+        return fetchAndSaveRestaurantPages(postNummer, saved::addAll).thenApply(done -> List.copyOf(saved));
+    }
 
-    private List<JsonNode> fetchNearbyRestaurants(double lat, double lng) {
+    public List<RestaurantDto> fetchAndSaveRestaurants(String postNummer) {
         try {
-            RestTemplate rest = new RestTemplate();
+            return fetchAndSaveRestaurantsAsync(postNummer).join();
+        } catch (CompletionException e) {
+            throw GoogleMapsClient.unwrap(e);
+        }
+    }
 
-            String url = UriComponentsBuilder
-                    .fromHttpUrl("https://maps.googleapis.com/maps/api/place/nearbysearch/json")
-                    .queryParam("location", lat + "," + lng)
-                    .queryParam("radius", 2000)         // 2km radius
-                    .queryParam("type", "restaurant")
-                    .queryParam("keyword", "restaurant")
-                    .queryParam("key", API_KEY)
-                    .build(true)
-                    .toUriString();
+    private List<RestaurantDto> save(String postNummer, List<JsonNode> results) {
+        // Visible in the catalog now, written to H2 in the background
+        if (writeBehind.isEnabled()) {
+            return writeBehind.submit(postNummer, results);
+        }
 
-            String json = rest.getForObject(url, String.class);
+        RestaurantIngestService.IngestResult ingested = ingestService.ingest(postNummer, results);
 
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode results = mapper.readTree(json).path("results");
+        // Updated rows may belong to postcodes fetched earlier; a page with no changes keeps every cache
+        Set<String> changed = new HashSet<>();
+        if (!ingested.inserted().isEmpty()) changed.add(postNummer);
+        ingested.updated().forEach(r -> changed.add(r.getPostNummer()));
+        if (!changed.isEmpty()) {
+            catalog.invalidate(changed);
+            changed.forEach(rankingCache::invalidate);
+        }
 
-            List<JsonNode> list = new ArrayList<>();
-            results.forEach(list::add);
-            return list;
+        System.out.println("Saved " + ingested.inserted().size() + " new and "
+                + ingested.updated().size() + " updated restaurants for " + postNummer);
 
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to fetch restaurants", e);
-        }
+        return ingested.inserted().stream()
+                .map(RestaurantService::toDto)
+                .toList();
     }
-    public List<RestaurantDto> fetchAndSaveRestaurants(String postNummer) {
 
-        System.out.println("Geocoding Zip: " + postNummer);
 
-        double[] coords = geocodeZip(postNummer);
-        double lat = coords[0];
-        double lng = coords[1];
 
-        System.out.println("Coordinates: " + lat + ", " + lng);
+    /** Retrieve all stored restaurants from DB */
+    public List<RestaurantDto> getAllRestaurants() {
+        return catalog.global().toDtos();
+    }
 
-        List<JsonNode> results = fetchNearbyRestaurants(lat, lng);
 
-        List<RestaurantEntity> entities = new ArrayList<>();
+    /** Streams every stored restaurant to the sink in id order, holding at most one fetch batch in memory */
+    @Transactional(readOnly = true)
+    public void streamAllRestaurants(Consumer<RestaurantDto> sink) {
+        try (Stream<RestaurantDto> rows = repository.streamAllDtos()) {
+            rows.forEach(sink);
+        }
+    }
 
-        for (JsonNode r : results) {
+    /** Keyset page: the first `size` restaurants with id > afterId */
+    public RestaurantPageDto getRestaurantsPage(long afterId, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<RestaurantDto> rows = repository.findDtoPage(afterId, Limit.of(size));
+        Long nextAfterId = rows.size() < size ? null : rows.get(rows.size() - 1).getId();
+        return new RestaurantPageDto(rows, nextAfterId);
+    }
 
-            String placeId = r.path("place_id").asText();
 
+    public List<RestaurantDto> getRestaurantsByPostNummer(String postNummer) {
+        return catalog.forPostNummer(postNummer).toDtos();
+    }
 
-            // Skip duplicates
-            if (repository.existsByPlaceId(placeId)) continue;
+    /** match = "exact" (default) or "prefix" */
+    public List<RestaurantDto> getRestaurantsByPostNummer(String postNummer, String match) {
+        switch (match.toLowerCase().trim()) {
+            case "exact":
+                return catalog.forPostNummer(postNummer).toDtos();
+            case "prefix":
+                return catalog.forPostNummerPrefix(postNummer).toDtos();
+            default:
+                throw new IllegalArgumentException("Unknown match mode: " + match);
+        }
+    }
 
-            String name = r.path("name").asText();
-            String address = r.path("vicinity").asText("");
-            double rating = r.path("rating").asDouble(0.0);
 
-            double restLat = r.path("geometry").path("location").path("lat").asDouble();
-            double restLng = r.path("geometry").path("location").path("lng").asDouble();
-            Integer priceLevel = r.path("price_level").asInt(-1);
 
-            RestaurantEntity entity = RestaurantEntity.builder()
-                    .placeId(placeId)
-                    .name(name)
-                    .address(address)
-                    .rating(rating)
-                    .lat(restLat)
-                    .lng(restLng)
-                    .priceLevel(priceLevel)
-                    .postNummer(postNummer)
-                    .build();
 
-            entities.add(entity);
-        }
 
-        repository.saveAll(entities);
-
-        return entities.stream()
-                .map(e -> new RestaurantDto(
-                        e.getName(),
-                        e.getAddress(),
-                        e.getRating(),
-                        e.getLat(),
-                        e.getLng(),
-                        e.getPriceLevel(),
-                        e.getPostNummer()
-                ))
+    /** Restaurants within radiusMeters of the point. Only the covering geohash cells are read from the DB. */
+    public List<RestaurantDto> getRestaurantsWithinRadius(double lat, double lng, double radiusMeters) {
+        return GeoHash.coverRadius(lat, lng, radiusMeters).stream()
+                .flatMap(cell -> repository.findDtosByGeohashPrefix(cell).stream())
+                .filter(r -> AlgorithmPipeline.haversine(lat, lng, r.getLat(), r.getLng()) <= radiusMeters)
                 .toList();
     }
 
-
-
-    /** Retrieve all stored restaurants from DB */
-    public List<RestaurantDto> getAllRestaurants() {
-        return repository.findAll().stream()
-                .map(e -> new RestaurantDto(e.getName(), e.getAddress(),
-                        e.getRating(), e.getLat(), e.getLng(), e.getPriceLevel(), e.getPostNummer()))
+    /** Restaurants inside the bounding box. Only the covering geohash cells are read from the DB. */
+    public List<RestaurantDto> getRestaurantsInBoundingBox(double minLat, double minLng, double maxLat, double maxLng) {
+        return GeoHash.coverBoundingBox(minLat, minLng, maxLat, maxLng).stream()
+                .flatMap(cell -> repository.findDtosByGeohashPrefix(cell).stream())
+                .filter(r -> r.getLat() >= minLat && r.getLat() <= maxLat
+                        && r.getLng() >= minLng && r.getLng() <= maxLng)
                 .toList();
     }
 
+    /** Rows saved before the geohash column existed get their cell on startup, and their postNummer normalised */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillGeohashes() {
+        int normalized = repository.normalizePostNummers();
+        if (normalized > 0) {
+            catalogVersion.bump();
+            System.out.println("Normalised postNummer for " + normalized + " restaurants");
+            catalog.invalidate();
+        }
 
-    public List<RestaurantDto> getRestaurantsByPostNummer(String postNummer) {
-        return repository.findByPostNummer(postNummer)
-                .stream()
-                .map(e -> new RestaurantDto(
-                        e.getName(),
-                        e.getAddress(),
-                        e.getRating(),
-                        e.getLat(),
-                        e.getLng(),
-                        e.getPriceLevel(),
-                        e.getPostNummer()
-                ))
-                .toList();
+        List<RestaurantEntity> missing = repository.findByGeohashIsNull();
+        if (missing.isEmpty()) return;
+
+        missing.forEach(RestaurantEntity::updateGeohash);
+        repository.saveAll(missing);
+        catalog.invalidate();
+        System.out.println("Backfilled geohash for " + missing.size() + " restaurants");
     }
 
+    static RestaurantDto toDto(RestaurantEntity e) {
+        return new RestaurantDto(e.getId(), e.getName(), e.getAddress(),
+                e.getRating(), e.getLat(), e.getLng(), e.getPriceLevel(), e.getPostNummer());
+    }
 
 
 
@@ -209,64 +288,97 @@ public class RestaurantService {
             String method,
             Double lat,
             Double lng,
-            Integer k
+            Integer k,
+            Integer limit,
+            int offset
     ) {
 
 
 
 
         method= method.toLowerCase().trim();
-        postNummer = postNummer.toLowerCase().trim();
-        List<RestaurantDto> restaurants = getRestaurantsByPostNummer(postNummer);
+        postNummer = RestaurantEntity.normalizePostNummer(postNummer);
+
+        if (!SORT_METHODS.contains(method)) {
+            throw new IllegalArgumentException("Unknown sorting method: " + method);
+        }
 
         if ((method.equals("distance") || method.equals("weighted") || method.equals("knn"))
                 && (lat == null || lng == null)) {
             throw new IllegalArgumentException("lat and lng are required for method: " + method);
         }
 
+        if ((limit != null && limit < 0) || offset < 0) {
+            throw new IllegalArgumentException("limit and offset must not be negative");
+        }
+
+        // Ranked pages are cached per postNummer, method and location cell
+        RankingCache.Key key = rankingCache.key(postNummer, method, lat, lng, k, limit, offset);
+        long version = rankingCache.version(postNummer);
+        List<RestaurantDto> cached = rankingCache.get(key);
+        if (cached != null) return cached;
 
-        if(restaurants.isEmpty()){
-          return  fetchAndSaveRestaurants(postNummer);
+        RestaurantSnapshot restaurants = catalog.forPostNummer(postNummer);
 
+        if(restaurants.size() == 0){
+            // Cold postNummer: fetch and store it, then rank what is stored like a warm request
+            fetchAndSaveRestaurants(postNummer);
+            version = rankingCache.version(postNummer);
+            restaurants = catalog.forPostNummer(postNummer);
+            if (restaurants.size() == 0) return List.of();
         }
 
         System.out.println("Sort method='" + method + "', postNummer='" + postNummer + "'");
         System.out.println("Restaurants loaded for sorting: " + restaurants.size());
 
+        // Ranked from the cell centre, so every user in the cell gets the cached answer
+        String rankMethod = method;
+        RestaurantSnapshot loaded = restaurants;
+        List<RestaurantDto> ranked = metrics.timeRanking(method, loaded.size(), () ->
+                List.copyOf(rank(loaded, rankMethod, key.lat(), key.lng(), k, limit, offset)));
+        rankingCache.put(key, ranked, version);
+        return ranked;
+    }
+
+    private static List<RestaurantDto> rank(RestaurantSnapshot restaurants, String method,
+                                            Double lat, Double lng, Integer k, Integer limit, int offset) {
 
+        double[] keys;
 
         switch (method) {
 
             case "distance":
-                return AlgorithmPipeline.MergeSort.sort(
-                        restaurants,
-                        AlgorithmPipeline.RestaurantComparators.byDistance(lat, lng)
-                );
+                keys = AlgorithmPipeline.RowKeys.byDistance(restaurants, lat, lng);
+                break;
 
+            // Small integer domains: O(n) counting / radix sort instead of a comparison sort
             case "rating":
-                return AlgorithmPipeline.MergeSort.sort(
-                        restaurants,
-                        AlgorithmPipeline.RestaurantComparators.byRating()
-                );
+                return AlgorithmPipeline.page(restaurants, AlgorithmPipeline.RadixSort.byRating(restaurants),
+                        offset, limit == null ? restaurants.size() : limit);
 
             case "price":
-                return AlgorithmPipeline.MergeSort.sort(
-                        restaurants,
-                        AlgorithmPipeline.RestaurantComparators.byPrice()
-                );
+                return AlgorithmPipeline.page(restaurants, AlgorithmPipeline.RadixSort.byPriceThenRating(restaurants),
+                        offset, limit == null ? restaurants.size() : limit);
 
             case "weighted":
-                return AlgorithmPipeline.MergeSort.sort(
-                        restaurants,
-                        AlgorithmPipeline.RestaurantComparators.weighted(lat, lng)
-                );
+                keys = AlgorithmPipeline.RowKeys.weighted(restaurants, lat, lng);
+                break;
 
             case "knn":
-                return AlgorithmPipeline.kNearest(restaurants, lat, lng, k);
+                return page(AlgorithmPipeline.kNearest(restaurants, lat, lng, k), offset, limit);
 
             default:
                 throw new IllegalArgumentException("Unknown sorting method: " + method);
         }
+
+        // Only the requested page is selected and materialised
+        return AlgorithmPipeline.topByKey(restaurants, keys, offset, limit == null ? restaurants.size() : limit);
+    }
+
+    private static List<RestaurantDto> page(List<RestaurantDto> list, int offset, Integer limit) {
+        int from = Math.min(offset, list.size());
+        int to = limit == null ? list.size() : (int) Math.min((long) from + limit, list.size());
+        return list.subList(from, to);
     }
 
 
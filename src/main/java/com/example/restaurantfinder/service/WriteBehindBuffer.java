@@ -0,0 +1,314 @@
+package com.example.restaurantfinder.service;
+
+import com.example.restaurantfinder.dtomodel.RestaurantDto;
+import com.example.restaurantfinder.entity.RestaurantEntity;
+import com.example.restaurantfinder.repo.RestaurantRepo;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind mode for ingest (ingest.write-behind.enabled).
+ * A page is diffed against the stored content hashes (one read), its new and changed rows are put in
+ * PendingRestaurants, where the catalog shows them at once, and queued. A writer thread drains the
+ * queue in batches of up to ingest.write-behind.batch-size, keeps the last version per placeId and
+ * writes each batch through RestaurantIngestService in one transaction.
+ *
+ * The queue holds at most ingest.write-behind.max-pending rows. When it is full the caller waits up to
+ * ingest.write-behind.max-wait for room, then writes the rest of its page itself, as without
+ * write-behind. Caller writes and the writer thread take turns (writeLock). The queue is drained on shutdown.
+ *
+ * Rows of a failed batch stay visible and are retried one per transaction before the next batch, so a
+ * bad row cannot take the rest of its batch down with it; after MAX_WRITE_ATTEMPTS a row is dropped.
+ */
+// Destroyed before CatalogSnapshotStore, so the final snapshot is written after the last flush
+@DependsOn("catalogSnapshotStore")
+@Component
+public class WriteBehindBuffer {
+
+    static final int MAX_WRITE_ATTEMPTS = 5;
+
+    // row is the version currently in PendingRestaurants
+    private record Pending(RestaurantEntity entity, PendingRestaurants.Row row, int attempts) {
+
+        Pending retry(PendingRestaurants.Row current) {
+            return new Pending(entity, current, attempts + 1);
+        }
+    }
+
+    private final RestaurantIngestService ingestService;
+    private final RestaurantRepo repository;
+    private final RestaurantCatalog catalog;
+    private final RankingCache rankingCache;
+    private final PendingRestaurants pending;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration maxWait;
+    private final BlockingQueue<Pending> queue;
+
+    private Thread writer;
+    private volatile boolean running;
+
+    // Caller overflow writes and the writer thread never write at the same time
+    private final Object writeLock = new Object();
+    private final List<Pending> retries = new ArrayList<>(); // guarded by writeLock
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong callerWrites = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public WriteBehindBuffer(
+            RestaurantIngestService ingestService,
+            RestaurantRepo repository,
+            RestaurantCatalog catalog,
+            RankingCache rankingCache,
+            PendingRestaurants pending,
+            @Value("${ingest.write-behind.enabled:false}") boolean enabled,
+            @Value("${ingest.write-behind.max-pending:10000}") int maxPending,
+            @Value("${ingest.write-behind.batch-size:500}") int batchSize,
+            @Value("${ingest.write-behind.flush-interval:PT0.2S}") Duration flushInterval,
+            @Value("${ingest.write-behind.max-wait:PT5S}") Duration maxWait) {
+        this.ingestService = ingestService;
+        this.repository = repository;
+        this.catalog = catalog;
+        this.rankingCache = rankingCache;
+        this.pending = pending;
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(maxPending);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.maxWait = maxWait;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Accepts one page of Places results for postNummer and returns its new restaurants
+     * (without ids, which are assigned when they are written).
+     */
+    public List<RestaurantDto> submit(String postNummer, List<JsonNode> results) {
+        Map<String, RestaurantEntity> incoming = ingestService.toEntities(postNummer, results);
+        if (incoming.isEmpty()) return List.of();
+
+        Map<String, RestaurantRepo.PlaceHash> stored = new HashMap<>();
+        for (RestaurantRepo.PlaceHash row : repository.findContentHashes(incoming.keySet())) {
+            stored.put(row.getPlaceId(), row);
+        }
+
+        List<Pending> accepted = new ArrayList<>();
+        List<RestaurantDto> inserted = new ArrayList<>();
+        Set<String> changed = new HashSet<>();
+        for (RestaurantEntity entity : incoming.values()) {
+            entity.setPostNummer(RestaurantEntity.normalizePostNummer(entity.getPostNummer()));
+            RestaurantRepo.PlaceHash row = stored.get(entity.getPlaceId());
+            if (row != null && Objects.equals(row.getContentHash(), entity.computeContentHash())) continue;
+
+            // An update stays under the stored row's id and postNummer
+            RestaurantDto dto = row == null ? RestaurantService.toDto(entity)
+                    : new RestaurantDto(row.getId(), entity.getName(), entity.getAddress(), entity.getRating(),
+                    entity.getLat(), entity.getLng(), entity.getPriceLevel(), row.getPostNummer());
+            accepted.add(new Pending(entity, new PendingRestaurants.Row(entity.getPlaceId(),
+                    row == null ? null : row.getId(), dto), 0));
+            if (row == null) {
+                inserted.add(dto);
+                changed.add(entity.getPostNummer());
+            } else {
+                changed.add(row.getPostNummer());
+            }
+        }
+        if (accepted.isEmpty()) return inserted;
+
+        // Visible to readers from here on
+        accepted.forEach(p -> pending.put(p.row()));
+        invalidate(changed);
+
+        startWriter();
+        int queued = 0;
+        try {
+            while (queued < accepted.size() && queue.offer(accepted.get(queued), maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                queued++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Pending> overflow = accepted.subList(queued, accepted.size());
+        if (!overflow.isEmpty()) {
+            // Backpressure: the writer is behind, so this caller pays for its own rows
+            callerWrites.addAndGet(overflow.size());
+            write(overflow);
+        }
+        return inserted;
+    }
+
+    // ---------------------------
+    // Writer
+    // ---------------------------
+    private synchronized void startWriter() {
+        if (writer != null) return;
+        running = true;
+        writer = new Thread(this::drainLoop, "write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void drainLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Pending first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                // An idle tick still retries failed rows
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("Write-behind writer failed: " + e.getMessage());
+                e.printStackTrace();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Earlier failures first, one row per transaction; then the batch in one transaction
+    private void write(List<Pending> batch) {
+        synchronized (writeLock) {
+            if (!retries.isEmpty()) {
+                List<Pending> again = new ArrayList<>(retries);
+                retries.clear();
+                for (Pending p : again) writeBatch(List.of(p));
+            }
+            if (!batch.isEmpty()) writeBatch(batch);
+        }
+    }
+
+    // Last version per placeId; runs under writeLock
+    private void writeBatch(List<Pending> batch) {
+        Map<String, Pending> latest = new LinkedHashMap<>();
+        for (Pending p : batch) latest.put(p.row().placeId(), p);
+
+        Map<String, RestaurantEntity> entities = new LinkedHashMap<>();
+        Map<String, PendingRestaurants.Row> visible = new HashMap<>();
+        latest.forEach((placeId, p) -> {
+            entities.put(placeId, p.entity());
+            visible.put(placeId, p.row());
+        });
+
+        Set<String> changed = new HashSet<>();
+        for (PendingRestaurants.Row row : visible.values()) changed.add(row.dto().getPostNummer());
+        try {
+            // Overlay first, then the snapshots: a load between the two sees the committed rows in H2
+            RestaurantIngestService.IngestResult result = pending.commit(() -> {
+                RestaurantIngestService.IngestResult r = ingestService.ingest(entities, ingested -> {
+                    // Ids come from the sequence at persist, before the commit
+                    for (RestaurantEntity e : ingested.inserted()) {
+                        PendingRestaurants.Row withId = pending.assignId(visible.get(e.getPlaceId()), e.getId());
+                        if (withId != null) visible.put(e.getPlaceId(), withId);
+                    }
+                });
+                visible.values().forEach(pending::remove);
+                return r;
+            });
+            result.inserted().forEach(r -> changed.add(r.getPostNummer()));
+            result.updated().forEach(r -> changed.add(r.getPostNummer()));
+            written.addAndGet(result.inserted().size() + result.updated().size());
+            batches.incrementAndGet();
+        } catch (RuntimeException e) {
+            // Still visible; the overlay row may carry an id from the rolled-back insert, which is harmless
+            for (Pending p : latest.values()) {
+                PendingRestaurants.Row current = visible.get(p.row().placeId());
+                if (p.attempts() + 1 < MAX_WRITE_ATTEMPTS) {
+                    retries.add(p.retry(current));
+                    retried.incrementAndGet();
+                } else {
+                    pending.remove(current);
+                    dropped.incrementAndGet();
+                    System.err.println("Write-behind dropped " + p.row().placeId() + " after " + MAX_WRITE_ATTEMPTS + " attempts");
+                }
+            }
+            System.err.println("Write-behind batch of " + latest.size() + " restaurants failed, retrying row by row: " + e.getMessage());
+        }
+        invalidate(changed);
+    }
+
+    private void invalidate(Set<String> postNummers) {
+        catalog.invalidate(postNummers);
+        postNummers.forEach(rankingCache::invalidate);
+    }
+
+    /** Blocks until every row queued so far is written (or timeout passes); returns whether it drained. */
+    public boolean awaitDrained(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!pending.isEmpty()) {
+            if (System.nanoTime() > deadline) return false;
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    @PreDestroy
+    void flushOnShutdown() throws InterruptedException {
+        Thread current;
+        synchronized (this) {
+            running = false;
+            current = writer;
+        }
+        if (current != null) current.join(flushInterval.toMillis() + maxWait.toMillis() + 30_000);
+
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            System.out.println("Write-behind: flushing " + rest.size() + " restaurants on shutdown");
+        }
+        write(rest);
+        // Each pass moves every remaining row one attempt closer to being written or dropped
+        for (int pass = 1; pass < MAX_WRITE_ATTEMPTS && hasRetries(); pass++) {
+            write(List.of());
+        }
+    }
+
+    private boolean hasRetries() {
+        synchronized (writeLock) {
+            return !retries.isEmpty();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("queued", queue.size());
+        stats.put("pending", pending.size());
+        stats.put("written", written.get());
+        stats.put("batches", batches.get());
+        stats.put("callerWrites", callerWrites.get());
+        stats.put("retried", retried.get());
+        stats.put("dropped", dropped.get());
+        return stats;
+    }
+}
@@ -1,18 +1,193 @@
 package com.example.restaurantfinder;
 
 import com.example.restaurantfinder.algorithm.AlgorithmPipeline;
+import com.example.restaurantfinder.algorithm.DistanceKernel;
+import com.example.restaurantfinder.algorithm.GeoHash;
+import com.example.restaurantfinder.algorithm.MergeSortEngine;
+import com.example.restaurantfinder.algorithm.RestaurantSnapshot;
+import com.example.restaurantfinder.algorithm.SnapshotFile;
+import com.example.restaurantfinder.cache.LruCache;
+import com.example.restaurantfinder.dtomodel.BulkIngestJobDto;
+import com.example.restaurantfinder.dtomodel.BulkIngestRequest;
+import com.example.restaurantfinder.dtomodel.CompactRestaurant;
+import com.example.restaurantfinder.dtomodel.PostNummerDictionary;
 import com.example.restaurantfinder.dtomodel.RestaurantDto;
+import com.example.restaurantfinder.entity.GeocodeEntity;
+import com.example.restaurantfinder.entity.PostcodeFetchEntity;
+import com.example.restaurantfinder.entity.RestaurantEntity;
+import com.example.restaurantfinder.metrics.RestaurantMetrics;
+import com.example.restaurantfinder.repo.CatalogVersionRepo;
+import com.example.restaurantfinder.repo.GeocodeRepo;
+import com.example.restaurantfinder.repo.PostcodeFetchRepo;
+import com.example.restaurantfinder.repo.RestaurantRepo;
+import com.example.restaurantfinder.service.BulkIngestService;
+import com.example.restaurantfinder.service.CatalogSnapshotStore;
+import com.example.restaurantfinder.service.GeocodeCache;
+import com.example.restaurantfinder.service.PendingRestaurants;
+import com.example.restaurantfinder.service.PostcodeRefresher;
+import com.example.restaurantfinder.service.RankingCache;
+import com.example.restaurantfinder.service.RestaurantCatalog;
+import com.example.restaurantfinder.service.RestaurantService;
+import com.example.restaurantfinder.service.RestaurantIngestService;
+import com.example.restaurantfinder.service.WriteBehindBuffer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.restaurantfinder.client.GoogleApiException;
+import com.example.restaurantfinder.client.GoogleMapsClient;
+import com.sun.net.httpserver.HttpExchange;
+import io.micrometer.core.instrument.MeterRegistry;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:restaurantdb-test;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
 class RestaurantFinderApplicationTests {
 
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    GeocodeCache geocodeCache;
+
+    @Autowired
+    GeocodeRepo geocodeRepo;
+
+    @Autowired
+    RestaurantIngestService ingestService;
+
+    @Autowired
+    RestaurantRepo restaurantRepo;
+
+    @Autowired
+    RestaurantCatalog catalog;
+
+    @Autowired
+    RestaurantService restaurantService;
+
+    @Autowired
+    GoogleMapsClient googleMaps;
+
+    @Autowired
+    BulkIngestService bulkIngestService;
+
+    @Autowired
+    RankingCache rankingCache;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    CatalogSnapshotStore snapshotStore;
+
+    @Autowired
+    PostcodeRefresher refresher;
+
+    @Autowired
+    PostcodeFetchRepo fetchLog;
+
+    @Autowired
+    CatalogVersionRepo catalogVersion;
+
+    @Autowired
+    com.example.restaurantfinder.controller.RestaurantController restaurantController;
+
+    // ---------------------------
+    // Local stand-in for maps.googleapis.com; tests register handlers per path
+    // ---------------------------
+    static final Map<String, HttpHandler> googleRoutes = new ConcurrentHashMap<>();
+    static final HttpServer GOOGLE_STUB = startGoogleStub();
+
+    private static HttpServer startGoogleStub() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", exchange -> {
+                HttpHandler handler = googleRoutes.get(exchange.getRequestURI().getPath());
+                if (handler == null) respond(exchange, 404, "{}");
+                else handler.handle(exchange);
+            });
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void googleProperties(DynamicPropertyRegistry registry) {
+        registry.add("google.api.base-url", () -> "http://127.0.0.1:" + GOOGLE_STUB.getAddress().getPort());
+        registry.add("google.api.key", () -> "test-key");
+        registry.add("google.places.page-token-delay", () -> "PT0.05S");
+        registry.add("refresh.enabled", () -> "false");
+        registry.add("refresh.budget", () -> "1");
+        registry.add("catalog.snapshot.path", () -> SNAPSHOT_DIR.resolve("catalog.snapshot").toString());
+    }
+
+    static final java.nio.file.Path SNAPSHOT_DIR = createSnapshotDir();
+
+    private static java.nio.file.Path createSnapshotDir() {
+        try {
+            return java.nio.file.Files.createTempDirectory("catalog-snapshot");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    static final String GEOCODE_PATH = "/maps/api/geocode/json";
+    static final String NEARBY_PATH = "/maps/api/place/nearbysearch/json";
+
     @Test
     void contextLoads() {
     }
@@ -296,5 +471,1159 @@ class RestaurantFinderApplicationTests {
         }
     }
 
+    @Test
+    void testKNearestReturnsNearestFirst() {
+        double userLat = 55.6761;
+        double userLng = 12.5683;
+
+        List<RestaurantDto> input = List.of(
+                new RestaurantDto("R1", "addr1", 4.0, 55.7, 12.6, 2, "2400"),
+                new RestaurantDto("R2", "addr2", 4.0, 55.676, 12.568, 2, "2400"),
+                new RestaurantDto("R3", "addr3", 4.0, 55.68, 12.57, 2, "2400"),
+                new RestaurantDto("R4", "addr4", 4.0, 55.69, 12.58, 2, "2400"),
+                new RestaurantDto("R5", "addr5", 4.0, 55.71, 12.59, 2, "2400")
+        );
+
+        List<RestaurantDto> result = AlgorithmPipeline.kNearest(input, userLat, userLng, 3);
+
+        assertEquals("R2", result.get(0).getName());
+        assertEquals("R3", result.get(1).getName());
+        assertEquals("R4", result.get(2).getName());
+    }
+
+    @Test
+    void testSpatialIndexMatchesLinearScan() {
+        java.util.Random random = new java.util.Random(7);
+        List<RestaurantDto> input = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            input.add(new RestaurantDto("R" + i, "addr", 4.0,
+                    55.6 + random.nextDouble() * 0.2, 12.5 + random.nextDouble() * 0.2, 2, "2400"));
+        }
+        AlgorithmPipeline.SpatialIndex index = AlgorithmPipeline.SpatialIndex.build(input);
+
+        for (int q = 0; q < 50; q++) {
+            double userLat = 55.6 + random.nextDouble() * 0.2;
+            double userLng = 12.5 + random.nextDouble() * 0.2;
+
+            AlgorithmPipeline.LocalProjection user = AlgorithmPipeline.LocalProjection.at(userLat, userLng);
+            List<RestaurantDto> expected = AlgorithmPipeline.JavaSort.sort(input,
+                    java.util.Comparator.comparingDouble(r -> user.squaredDegrees(r.getLat(), r.getLng())));
+
+            List<RestaurantDto> result = index.kNearest(userLat, userLng, 10);
+            assertEquals(expected.subList(0, 10), result);
+            // The one-off list scan agrees with the tree
+            assertEquals(result, AlgorithmPipeline.kNearest(input, userLat, userLng, 10));
+        }
+    }
+
+    @Test
+    void testGeoHashEncode() {
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+    }
+
+    @Test
+    void testGeoHashRadiusCoverContainsAllPointsInRadius() {
+        java.util.Random random = new java.util.Random(11);
+        double centerLat = 55.6761;
+        double centerLng = 12.5683;
+        double radius = 750;
+
+        List<String> cells = GeoHash.coverRadius(centerLat, centerLng, radius);
+        assertTrue(cells.size() <= 4);
+
+        for (int i = 0; i < 5000; i++) {
+            double lat = centerLat + (random.nextDouble() - 0.5) * 0.03;
+            double lng = centerLng + (random.nextDouble() - 0.5) * 0.05;
+            if (AlgorithmPipeline.haversine(centerLat, centerLng, lat, lng) > radius) continue;
+
+            String hash = GeoHash.encode(lat, lng, GeoHash.MAX_PRECISION);
+            assertTrue(cells.stream().anyMatch(hash::startsWith), "point outside covering cells: " + hash);
+        }
+    }
+
+    @Test
+    void testHaversine() {
+        // Copenhagen Central Station to Nørreport, roughly 1.3 km
+        double meters = AlgorithmPipeline.haversine(55.6727, 12.5647, 55.6833, 12.5716);
+        assertTrue(meters > 1200 && meters < 1350);
+    }
+
+    @Test
+    void testLruCacheEvictsLeastRecentlyUsed() {
+        LruCache<String, Integer> cache = new LruCache<>(2, Duration.ofMinutes(1));
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(3, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    void testLruCacheExpiresEntries() {
+        LruCache<String, Integer> cache = new LruCache<>(10, Duration.ZERO);
+        cache.put("a", 1);
+
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.getStale("a"));
+    }
+
+    @Test
+    void testGeocodeCacheCallsLoaderOnce() {
+        String postNummer = "test-" + System.nanoTime();
+        int[] calls = {0};
+
+        double[] first = geocodeCache.get(postNummer, p -> {
+            calls[0]++;
+            return new double[]{55.0, 12.0};
+        });
+        double[] second = geocodeCache.get(postNummer, p -> {
+            calls[0]++;
+            return new double[]{0.0, 0.0};
+        });
+
+        assertEquals(1, calls[0]);
+        assertArrayEquals(first, second);
+        assertTrue(geocodeRepo.existsById(postNummer));
+    }
+
+    @Test
+    void testGeocodeCacheServesStaleWhenLoaderFails() {
+        String postNummer = "stale-" + System.nanoTime();
+        geocodeRepo.save(new GeocodeEntity(postNummer, 55.5, 12.5,
+                Instant.now().minus(Duration.ofDays(365))));
+
+        double[] coords = geocodeCache.get(postNummer, p -> {
+            throw new RuntimeException("Google unavailable");
+        });
+
+        assertArrayEquals(new double[]{55.5, 12.5}, coords);
+    }
+
+    @Test
+    void testSnapshotSortMatchesListSort() {
+        java.util.Random random = new java.util.Random(3);
+        List<RestaurantDto> input = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            input.add(new RestaurantDto((long) i, "R" + i, "addr", Math.round(random.nextDouble() * 50) / 10.0,
+                    55.6 + random.nextDouble() * 0.2, 12.5 + random.nextDouble() * 0.2,
+                    random.nextInt(5), "2400"));
+        }
+        RestaurantSnapshot snapshot = RestaurantSnapshot.of(input);
+
+        assertEquals(
+                AlgorithmPipeline.MergeSort.sort(input, AlgorithmPipeline.RestaurantComparators.byRating()),
+                AlgorithmPipeline.sort(snapshot, AlgorithmPipeline.RowComparators.byRating(snapshot)));
+        assertEquals(
+                AlgorithmPipeline.MergeSort.sort(input, AlgorithmPipeline.RestaurantComparators.byPrice()),
+                AlgorithmPipeline.sort(snapshot, AlgorithmPipeline.RowComparators.byPrice(snapshot)));
+        assertEquals(
+                AlgorithmPipeline.MergeSort.sort(input, AlgorithmPipeline.RestaurantComparators.byDistance(55.7, 12.6)),
+                AlgorithmPipeline.sort(snapshot, AlgorithmPipeline.RowComparators.byDistance(snapshot, 55.7, 12.6)));
+        assertEquals(
+                AlgorithmPipeline.kNearest(input, 55.7, 12.6, 10),
+                AlgorithmPipeline.kNearest(snapshot, 55.7, 12.6, 10));
+    }
+
+    @Test
+    void testSnapshotFilterByPostNummer() {
+        RestaurantSnapshot snapshot = RestaurantSnapshot.of(List.of(
+                new RestaurantDto("A", "x", 4.0, 0, 0, 1, "2100"),
+                new RestaurantDto("B", "x", 4.0, 0, 0, 1, "2200"),
+                new RestaurantDto("C", "x", 4.0, 0, 0, 1, "2100")
+        ));
+
+        RestaurantSnapshot filtered = snapshot.filterByPostNummer("2100"::equals);
+
+        assertEquals(2, filtered.size());
+        assertEquals("A", filtered.toDto(0).getName());
+        assertEquals("C", filtered.toDto(1).getName());
+        assertEquals("2100", filtered.postNummer(1));
+    }
+
+    @Test
+    void testKeyedSortMatchesComparatorSort() {
+        java.util.Random random = new java.util.Random(5);
+        List<RestaurantDto> input = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            input.add(new RestaurantDto((long) i, "R" + i, "addr", Math.round(random.nextDouble() * 50) / 10.0,
+                    55.6 + random.nextDouble() * 0.2, 12.5 + random.nextDouble() * 0.2,
+                    random.nextInt(5), "2400"));
+        }
+        RestaurantSnapshot snapshot = RestaurantSnapshot.of(input);
+        double userLat = 55.7;
+        double userLng = 12.6;
+
+        List<RestaurantDto> byRating = AlgorithmPipeline.MergeSort.sort(input, AlgorithmPipeline.RestaurantComparators.byRating());
+        assertEquals(byRating, AlgorithmPipeline.MergeSort.sortByKey(input, AlgorithmPipeline.RestaurantKeys.byRating()));
+        assertEquals(byRating, AlgorithmPipeline.JavaSort.sortByKey(input, AlgorithmPipeline.RestaurantKeys.byRating()));
+        assertEquals(byRating, AlgorithmPipeline.sortByKey(snapshot, AlgorithmPipeline.RowKeys.byRating(snapshot)));
+
+        List<RestaurantDto> byPrice = AlgorithmPipeline.MergeSort.sort(input, AlgorithmPipeline.RestaurantComparators.byPrice());
+        assertEquals(byPrice, AlgorithmPipeline.MergeSort.sortByKey(input, AlgorithmPipeline.RestaurantKeys.byPrice()));
+        assertEquals(byPrice, AlgorithmPipeline.sortByKey(snapshot, AlgorithmPipeline.RowKeys.byPrice(snapshot)));
+
+        List<RestaurantDto> byDistance = AlgorithmPipeline.MergeSort.sort(input,
+                AlgorithmPipeline.RestaurantComparators.byDistance(userLat, userLng));
+        assertEquals(byDistance, AlgorithmPipeline.MergeSort.sortByKey(input,
+                AlgorithmPipeline.RestaurantKeys.byDistance(userLat, userLng)));
+        assertEquals(byDistance, AlgorithmPipeline.sortByKey(snapshot,
+                AlgorithmPipeline.RowKeys.byDistance(snapshot, userLat, userLng)));
+
+        List<RestaurantDto> weighted = AlgorithmPipeline.MergeSort.sort(input,
+                AlgorithmPipeline.RestaurantComparators.weighted(userLat, userLng));
+        assertEquals(weighted, AlgorithmPipeline.JavaSort.sortByKey(input,
+                AlgorithmPipeline.RestaurantKeys.weighted(userLat, userLng)));
+    }
+
+    @Test
+    void testTopKMatchesFullSortPage() {
+        java.util.Random random = new java.util.Random(9);
+        double[] keys = new double[1000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextInt(50) / 10.0;   // many ties
+        }
+        int[] full = AlgorithmPipeline.MergeSort.sortByKey(keys);
+
+        int[][] pages = {{0, 10}, {0, 0}, {25, 10}, {990, 10}, {995, 50}, {1000, 5}, {0, 1000}};
+        for (int[] page : pages) {
+            int offset = page[0];
+            int limit = page[1];
+            int end = Math.min(offset + limit, keys.length);
+            int[] expected = java.util.Arrays.copyOfRange(full, Math.min(offset, end), end);
+
+            assertArrayEquals(expected, AlgorithmPipeline.TopK.select(keys, offset, limit),
+                    "offset=" + offset + ", limit=" + limit);
+        }
+    }
+
+    @Test
+    void testMergeSortEngineIsStableSequentialAndParallel() {
+        java.util.Random random = new java.util.Random(13);
+        List<RestaurantDto> input = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            input.add(new RestaurantDto((long) i, "R" + i, "addr", random.nextInt(50) / 10.0, 0, 0, 1, "2400"));
+        }
+        java.util.Comparator<RestaurantDto> byRating = AlgorithmPipeline.RestaurantComparators.byRating();
+
+        // List.sort is a stable Timsort
+        List<RestaurantDto> expected = new ArrayList<>(input);
+        expected.sort(byRating);
+
+        RestaurantDto[] sequential = input.toArray(new RestaurantDto[0]);
+        MergeSortEngine.sort(sequential, byRating, false);
+        assertEquals(expected, List.of(sequential));
+
+        RestaurantDto[] parallel = input.toArray(new RestaurantDto[0]);
+        MergeSortEngine.sort(parallel, byRating, true);
+        assertEquals(expected, List.of(parallel));
+
+        assertEquals(expected, AlgorithmPipeline.MergeSort.sort(input, byRating));
+    }
+
+    private static List<JsonNode> placesPage(String... placeIdAndRating) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        List<JsonNode> page = new ArrayList<>();
+        for (int i = 0; i < placeIdAndRating.length; i += 2) {
+            page.add(mapper.readTree("""
+                    {"place_id": "%s", "name": "Place %s", "vicinity": "Street 1", "rating": %s,
+                     "price_level": 2, "geometry": {"location": {"lat": 55.68, "lng": 12.57}}}
+                    """.formatted(placeIdAndRating[i], placeIdAndRating[i], placeIdAndRating[i + 1])));
+        }
+        return page;
+    }
+
+    @Test
+    void testIngestInsertsNewAndUpdatesChangedRows() throws Exception {
+        String prefix = "ingest-" + System.nanoTime() + "-";
+
+        RestaurantIngestService.IngestResult first = ingestService.ingest("2400",
+                placesPage(prefix + "a", "4.0", prefix + "b", "3.0", prefix + "a", "4.0"));
+        assertEquals(2, first.inserted().size());
+        assertEquals(0, first.updated().size());
+
+        RestaurantIngestService.IngestResult second = ingestService.ingest("2400",
+                placesPage(prefix + "a", "4.0", prefix + "b", "3.5", prefix + "c", "5.0"));
+        assertEquals(1, second.inserted().size());
+        assertEquals(1, second.updated().size());
+
+        assertEquals(3.5, restaurantRepo.findByPlaceIdIn(List.of(prefix + "b")).get(0).getRating());
+        assertEquals(3, restaurantRepo.findByPlaceIdIn(List.of(prefix + "a", prefix + "b", prefix + "c")).size());
+    }
+
+    @Test
+    void testConcurrentIngestOfSamePlaceRetriesInsteadOfFailing() throws Exception {
+        String placeId = "race-" + System.nanoTime();
+        CompletableFuture<RestaurantIngestService.IngestResult> second = new CompletableFuture<>();
+
+        // The first ingest holds its insert uncommitted while the second one reads the place as missing
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try {
+                ingestService.ingest("2400", placesPage(placeId, "3.0"));
+                Thread thread = new Thread(() -> {
+                    try {
+                        second.complete(ingestService.ingest("2400", placesPage(placeId, "4.0")));
+                    } catch (Throwable e) {
+                        second.completeExceptionally(e);
+                    }
+                });
+                thread.start();
+                Thread.sleep(300);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        RestaurantIngestService.IngestResult result = second.get(30, java.util.concurrent.TimeUnit.SECONDS);
+        assertEquals(0, result.inserted().size());
+        assertEquals(1, result.updated().size());
+        List<com.example.restaurantfinder.entity.RestaurantEntity> stored = restaurantRepo.findByPlaceIdIn(List.of(placeId));
+        assertEquals(1, stored.size());
+        assertEquals(4.0, stored.get(0).getRating());
+    }
+
+    @Test
+    void testPostNummerExactAndPrefixLookup() throws Exception {
+        String base = "p" + System.nanoTime();
+        ingestService.ingest(base + "00", placesPage(base + "-a", "4.0"));
+        ingestService.ingest(" " + base + "50 ", placesPage(base + "-b", "4.0"));
+        ingestService.ingest(base.substring(0, base.length() - 1) + "x", placesPage(base + "-c", "4.0"));
+        catalog.invalidate();
+
+        assertEquals(1, catalog.forPostNummer(base + "00").size());
+        assertEquals(1, catalog.forPostNummer(base + "50").size());
+        assertEquals(0, catalog.forPostNummer(base).size());
+        assertEquals(2, catalog.forPostNummerPrefix(base).size());
+    }
+
+    @Test
+    void testCatalogPostNummerSnapshotsAreBounded() throws Exception {
+        String base = "lru" + System.nanoTime();
+        for (String suffix : List.of("a", "b", "c")) {
+            ingestService.ingest(base + suffix, placesPage(base + suffix + "-1", "4.0"));
+        }
+        RestaurantCatalog small = new RestaurantCatalog(restaurantRepo, new RestaurantMetrics(meterRegistry),
+                new PendingRestaurants(), 2, Duration.ofMinutes(1), 2);
+
+        for (String suffix : List.of("a", "b", "c")) {
+            assertEquals(1, small.forPostNummer(base + suffix).size());
+        }
+        assertEquals(2, small.stats().size());
+        assertEquals(1, small.stats().evictions());
+
+        // An empty or one-character prefix is answered from the global snapshot, not cached as a copy of it
+        assertEquals(restaurantRepo.count(), small.forPostNummerPrefix("").size());
+        assertSame(small.global(), small.forPostNummerPrefix(" "));
+        assertEquals(restaurantRepo.findDtosByPostNummerPrefix("l").size(), small.forPostNummerPrefix("l").size());
+        assertEquals(3, small.forPostNummerPrefix(base).size());
+        // Loaded from H2 or filtered from the global snapshot: same rows, same (id) order
+        assertEquals(small.global().filterByPostNummer(p -> p.startsWith(base)).toDtos(),
+                small.forPostNummerPrefix(base).toDtos());
+        assertEquals(2, small.stats().size());
+        assertEquals(2, small.stats().evictions());
+    }
+
+    @Test
+    void testStreamAndKeysetPagesCoverWholeCatalog() throws Exception {
+        String prefix = "walk-" + System.nanoTime() + "-";
+        ingestService.ingest("2400", placesPage(prefix + "a", "4.0", prefix + "b", "3.0",
+                prefix + "c", "2.0", prefix + "d", "1.0", prefix + "e", "5.0"));
+        long total = restaurantRepo.count();
+
+        List<RestaurantDto> streamed = new ArrayList<>();
+        restaurantService.streamAllRestaurants(streamed::add);
+        assertEquals(total, streamed.size());
+
+        List<Long> paged = new ArrayList<>();
+        Long afterId = 0L;
+        while (afterId != null) {
+            com.example.restaurantfinder.dtomodel.RestaurantPageDto page = restaurantService.getRestaurantsPage(afterId, 2);
+            page.getItems().forEach(r -> paged.add(r.getId()));
+            afterId = page.getNextAfterId();
+        }
+        assertEquals(streamed.stream().map(RestaurantDto::getId).toList(), paged);
+    }
+
+
+    @Test
+    void testGoogleClientGeocodesAgainstStub() {
+        googleRoutes.put(GEOCODE_PATH, exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            if (!query.contains("key=test-key")) respond(exchange, 403, "{}");
+            else if (query.contains("address=0000")) respond(exchange, 200, "{\"status\": \"ZERO_RESULTS\", \"results\": []}");
+            else respond(exchange, 200, """
+                    {"status": "OK", "results": [{"geometry": {"location": {"lat": 55.7, "lng": 12.55}}}]}
+                    """);
+        });
+
+        double[] coords = googleMaps.geocode("2200").join();
+        assertEquals(55.7, coords[0]);
+        assertEquals(12.55, coords[1]);
+
+        RuntimeException error = GoogleMapsClient.unwrap(
+                assertThrows(RuntimeException.class, () -> googleMaps.geocode("0000").join()));
+        assertInstanceOf(GoogleApiException.class, error);
+        assertEquals("ZERO_RESULTS", ((GoogleApiException) error).getStatus());
+    }
+
+    @Test
+    void testGoogleClientMapsHttpErrors() {
+        googleRoutes.put(NEARBY_PATH, exchange -> respond(exchange, 503, "unavailable"));
 
+        RuntimeException error = GoogleMapsClient.unwrap(
+                assertThrows(RuntimeException.class, () -> googleMaps.nearbySearch(55.7, 12.55, 2000).join()));
+        assertInstanceOf(GoogleApiException.class, error);
+        assertEquals("HTTP_503", ((GoogleApiException) error).getStatus());
+    }
+
+    @Test
+    void testConcurrentFetchesOverlapOnSharedClient() {
+        String base = "async-" + System.nanoTime() + "-";
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        googleRoutes.put(GEOCODE_PATH, exchange -> respond(exchange, 200, """
+                {"status": "OK", "results": [{"geometry": {"location": {"lat": 55.68, "lng": 12.57}}}]}
+                """));
+        googleRoutes.put(NEARBY_PATH, exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            String placeId = base + exchange.getRequestURI().getQuery().hashCode() + "-" + System.nanoTime();
+            respond(exchange, 200, """
+                    {"status": "OK", "results": [{"place_id": "%s", "name": "Async", "vicinity": "Street 1",
+                      "rating": 4.0, "geometry": {"location": {"lat": 55.68, "lng": 12.57}}}]}
+                    """.formatted(placeId));
+        });
+
+        CompletableFuture<List<RestaurantDto>> first = restaurantService.fetchAndSaveRestaurantsAsync(base + "1");
+        CompletableFuture<List<RestaurantDto>> second = restaurantService.fetchAndSaveRestaurantsAsync(base + "2");
+
+        assertEquals(1, first.join().size());
+        assertEquals(1, second.join().size());
+        assertEquals(2, maxInFlight.get());
+    }
+
+    private static String placesJson(String status, String nextPageToken, String... placeIds) {
+        StringBuilder results = new StringBuilder();
+        for (String placeId : placeIds) {
+            if (!results.isEmpty()) results.append(',');
+            results.append("""
+                    {"place_id": "%s", "name": "Paged", "vicinity": "Street 1", "rating": 4.0,
+                     "geometry": {"location": {"lat": 55.68, "lng": 12.57}}}
+                    """.formatted(placeId));
+        }
+        String token = nextPageToken == null ? "" : ", \"next_page_token\": \"" + nextPageToken + "\"";
+        return "{\"status\": \"" + status + "\", \"results\": [" + results + "]" + token + "}";
+    }
+
+    @Test
+    void testNearbySearchFollowsPageTokens() {
+        String base = "paged-" + System.nanoTime() + "-";
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger thirdPageAttempts = new AtomicInteger();
+
+        googleRoutes.put(GEOCODE_PATH, exchange -> respond(exchange, 200, """
+                {"status": "OK", "results": [{"geometry": {"location": {"lat": 55.68, "lng": 12.57}}}]}
+                """));
+        googleRoutes.put(NEARBY_PATH, exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            if (query.contains("pagetoken=token-2")) {
+                events.add("request 2");
+                respond(exchange, 200, placesJson("OK", "token-3", base + "c", base + "d"));
+            } else if (query.contains("pagetoken=token-3")) {
+                events.add("request 3");
+                // Token not active yet on the first attempt
+                if (thirdPageAttempts.incrementAndGet() == 1) respond(exchange, 200, placesJson("INVALID_REQUEST", null));
+                else respond(exchange, 200, placesJson("OK", null, base + "e"));
+            } else {
+                events.add("request 1");
+                respond(exchange, 200, placesJson("OK", "token-2", base + "a", base + "b"));
+            }
+        });
+
+        List<Integer> pageSizes = new ArrayList<>();
+        restaurantService.fetchAndSaveRestaurantPages(base + "zip", page -> {
+            events.add("page " + (pageSizes.size() + 1));
+            pageSizes.add(page.size());
+        }).join();
+
+        assertEquals(List.of(2, 2, 1), pageSizes);
+        assertEquals(List.of("request 1", "page 1", "request 2", "page 2", "request 3", "request 3", "page 3"), events);
+        assertEquals(5, catalog.forPostNummer(base + "zip").size());
+    }
+
+    @Test
+    void testResponseSerialisationAndSizeAreRecordedPerEndpoint() throws Exception {
+        String postNummer = "size" + System.nanoTime();
+        googleRoutes.put(GEOCODE_PATH, exchange -> respond(exchange, 200, """
+                {"status": "OK", "results": [{"geometry": {"location": {"lat": 55.68, "lng": 12.57}}}]}
+                """));
+        googleRoutes.put(NEARBY_PATH, exchange -> respond(exchange, 200,
+                placesJson("OK", null, postNummer + "-a", postNummer + "-b")));
+
+        // Through the regular message converters; the body is written on the async dispatch
+        double fetchedBefore = recordedBytes("restaurants");
+        MvcResult started = mockMvc.perform(get("/api/restaurants").param("postNummer", postNummer))
+                .andExpect(request().asyncStarted()).andReturn();
+        MvcResult fetched = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn();
+        byte[] fetchedBody = fetched.getResponse().getContentAsByteArray();
+        assertEquals(2, new ObjectMapper().readTree(fetchedBody).size());
+        assertEquals(fetchedBefore + fetchedBody.length, recordedBytes("restaurants"));
+
+        double sortedBefore = recordedBytes("sort");
+        byte[] sortedBody = mockMvc.perform(get("/api/restaurants/sort")
+                        .param("postNummer", postNummer).param("method", "rating"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(2, new ObjectMapper().readTree(sortedBody).size());
+        assertEquals(sortedBefore + sortedBody.length, recordedBytes("sort"));
+
+        // Error bodies are not measured
+        mockMvc.perform(get("/api/restaurants/sort").param("postNummer", postNummer).param("method", "bogus"))
+                .andExpect(status().isBadRequest());
+        assertEquals(sortedBefore + sortedBody.length, recordedBytes("sort"));
+
+        double streamedBefore = recordedBytes("getAll/stream");
+        java.io.ByteArrayOutputStream streamed = new java.io.ByteArrayOutputStream();
+        restaurantController.streamAll().getBody().writeTo(streamed);
+        assertEquals(streamedBefore + streamed.size(), recordedBytes("getAll/stream"));
+
+        for (String endpoint : List.of("restaurants", "sort", "getAll/stream")) {
+            assertTrue(meterRegistry.get(RestaurantMetrics.SERIALISATION).tag("endpoint", endpoint).timer().count() > 0);
+        }
+    }
+
+    // Total response bytes recorded for the endpoint so far
+    private double recordedBytes(String endpoint) {
+        io.micrometer.core.instrument.DistributionSummary size =
+                meterRegistry.find(RestaurantMetrics.RESPONSE_BYTES).tag("endpoint", endpoint).summary();
+        return size == null ? 0 : size.totalAmount();
+    }
+
+    @Test
+    void testStreamClientDisconnectDoesNotAbortFetch() throws Exception {
+        String postNummer = "gone" + System.nanoTime();
+        googleRoutes.put(GEOCODE_PATH, exchange -> respond(exchange, 200, """
+                {"status": "OK", "results": [{"geometry": {"location": {"lat": 55.68, "lng": 12.57}}}]}
+                """));
+        googleRoutes.put(NEARBY_PATH, exchange -> {
+            if (exchange.getRequestURI().getQuery().contains("pagetoken=next")) {
+                respond(exchange, 200, placesJson("OK", null, postNummer + "-c"));
+            } else {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                respond(exchange, 200, placesJson("OK", "next", postNummer + "-a", postNummer + "-b"));
+            }
+        });
+
+        // The client is gone before the first page arrives: every send fails
+        restaurantController.streamRestaurants(postNummer).complete();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (fetchLog.findById(postNummer).map(PostcodeFetchEntity::getFetchedAt).isEmpty()
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(fetchLog.findById(postNummer).map(PostcodeFetchEntity::getFetchedAt).isPresent());
+        assertEquals(3, restaurantRepo.findDtosByPostNummer(postNummer).size());
+    }
+
+    @Test
+    void testBulkIngestBoundsConcurrencyAndReportsPerPostcode() throws Exception {
+        String base = "bulk-" + System.nanoTime() + "-";
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        googleRoutes.put(GEOCODE_PATH, exchange -> {
+            if (exchange.getRequestURI().getQuery().contains("missing")) {
+                respond(exchange, 200, "{\"status\": \"ZERO_RESULTS\", \"results\": []}");
+            } else {
+                respond(exchange, 200, """
+                        {"status": "OK", "results": [{"geometry": {"location": {"lat": 55.68, "lng": 12.57}}}]}
+                        """);
+            }
+        });
+        googleRoutes.put(NEARBY_PATH, exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            respond(exchange, 200, placesJson("OK", null, base + System.nanoTime()));
+        });
+
+        List<String> postNummers = List.of(base + "1", base + "2", base + "missing", base + "3", base + "4", base + "2");
+        BulkIngestJobDto job = bulkIngestService.start(new BulkIngestRequest(postNummers, null, null, 2));
+        assertEquals(5, job.getTotal());
+
+        for (int i = 0; i < 100 && !"DONE".equals(job.getState()); i++) {
+            Thread.sleep(50);
+            job = bulkIngestService.status(job.getId());
+        }
+
+        assertEquals("DONE", job.getState());
+        assertEquals(4, job.getDone());
+        assertEquals(1, job.getFailed());
+        assertEquals(4, job.getInserted());
+        assertEquals(2, maxInFlight.get());
+        assertEquals("FAILED", job.getPostcodes().get(2).getState());
+        assertEquals(1, job.getPostcodes().get(0).getPages());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> bulkIngestService.start(new BulkIngestRequest(null, 2990, 1000, null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> bulkIngestService.start(new BulkIngestRequest(List.of("2100"), null, null, 100)));
+    }
+
+    @Test
+    void testBulkIngestKeepsRunningJobsWhileManyOthersQueue() throws Exception {
+        String base = "longjob-" + System.nanoTime() + "-";
+        CountDownLatch release = new CountDownLatch(1);
+        googleRoutes.put(GEOCODE_PATH, exchange -> {
+            if (exchange.getRequestURI().getQuery().contains("slow")) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            respond(exchange, 200, "{\"status\": \"ZERO_RESULTS\", \"results\": []}");
+        });
+
+        BulkIngestJobDto running = bulkIngestService.start(new BulkIngestRequest(List.of(base + "slow"), null, null, 1));
+        // More queued jobs than the finished-job cache holds
+        List<String> queued = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            queued.add(bulkIngestService.start(new BulkIngestRequest(List.of(base + i), null, null, 1)).getId());
+        }
+        try {
+            assertNotNull(bulkIngestService.status(running.getId()));
+            assertNotNull(bulkIngestService.status(queued.get(0)));
+        } finally {
+            release.countDown();
+        }
+
+        BulkIngestJobDto last = bulkIngestService.status(queued.get(queued.size() - 1));
+        for (int i = 0; i < 200 && !"DONE".equals(last.getState()); i++) {
+            Thread.sleep(50);
+            last = bulkIngestService.status(last.getId());
+        }
+        assertEquals("DONE", last.getState());
+        assertEquals(1, last.getFailed());
+    }
+
+    @Test
+    void testAdminIngestIsOffByDefault() throws Exception {
+        mockMvc.perform(post("/api/admin/ingest").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"postNummers\": [\"2100\"]}"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/admin/ingest/whatever")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testConcurrentColdSortsShareOneFetch() {
+        String postNummer = "flight-" + System.nanoTime();
+        AtomicInteger geocodeCalls = new AtomicInteger();
+        AtomicInteger nearbyCalls = new AtomicInteger();
+
+        googleRoutes.put(GEOCODE_PATH, exchange -> {
+            geocodeCalls.incrementAndGet();
+            respond(exchange, 200, """
+                    {"status": "OK", "results": [{"geometry": {"location": {"lat": 55.68, "lng": 12.57}}}]}
+                    """);
+        });
+        googleRoutes.put(NEARBY_PATH, exchange -> {
+            nearbyCalls.incrementAndGet();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, placesJson("OK", null, postNummer + "-a", postNummer + "-b"));
+        });
+
+        var pool = Executors.newFixedThreadPool(5);
+        try {
+            List<CompletableFuture<List<RestaurantDto>>> callers = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                callers.add(CompletableFuture.supplyAsync(() -> restaurantService.sortRestaurants(
+                        postNummer, "rating", null, null, null, null, 0), pool));
+            }
+            for (CompletableFuture<List<RestaurantDto>> caller : callers) {
+                assertEquals(2, caller.join().size());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(1, geocodeCalls.get());
+        assertEquals(1, nearbyCalls.get());
+    }
+
+    @Test
+    void testColdSortIsRankedLikeAWarmOne() {
+        String postNummer = "coldrank-" + System.nanoTime();
+        googleRoutes.put(GEOCODE_PATH, exchange -> respond(exchange, 200, """
+                {"status": "OK", "results": [{"geometry": {"location": {"lat": 55.68, "lng": 12.57}}}]}
+                """));
+        googleRoutes.put(NEARBY_PATH, exchange -> respond(exchange, 200, """
+                {"status": "OK", "results": [
+                  {"place_id": "%1$s-1", "name": "Three", "vicinity": "Street 1", "rating": 3.0,
+                   "geometry": {"location": {"lat": 55.68, "lng": 12.57}}},
+                  {"place_id": "%1$s-2", "name": "Five", "vicinity": "Street 2", "rating": 5.0,
+                   "geometry": {"location": {"lat": 55.68, "lng": 12.57}}},
+                  {"place_id": "%1$s-3", "name": "Four", "vicinity": "Street 3", "rating": 4.0,
+                   "geometry": {"location": {"lat": 55.68, "lng": 12.57}}}]}
+                """.formatted(postNummer)));
+
+        // The fetching call ranks and pages the new rows, not just returns them in fetch order
+        List<RestaurantDto> cold = restaurantService.sortRestaurants(postNummer, "rating", null, null, null, 2, 0);
+        assertEquals(List.of("Five", "Four"), cold.stream().map(RestaurantDto::getName).toList());
+        assertTrue(cold.stream().allMatch(r -> r.getId() != null));
+
+        rankingCache.clear();
+        assertEquals(cold, restaurantService.sortRestaurants(postNummer, "rating", null, null, null, 2, 0));
+    }
+
+    @Test
+    void testUnknownPostcodeIsCachedNegatively() {
+        String postNummer = "nowhere-" + System.nanoTime();
+        AtomicInteger geocodeCalls = new AtomicInteger();
+        googleRoutes.put(GEOCODE_PATH, exchange -> {
+            geocodeCalls.incrementAndGet();
+            respond(exchange, 200, "{\"status\": \"ZERO_RESULTS\", \"results\": []}");
+        });
+
+        for (int i = 0; i < 3; i++) {
+            GoogleApiException error = assertThrows(GoogleApiException.class,
+                    () -> restaurantService.fetchAndSaveRestaurants(postNummer));
+            assertEquals("ZERO_RESULTS", error.getStatus());
+        }
+        assertEquals(1, geocodeCalls.get());
+    }
+
+    @Test
+    void testRankingCacheSharesCellsAndInvalidatesPerPostcode() throws Exception {
+        String base = "rank" + System.nanoTime();
+        String postNummer = base + "a";
+        String other = base + "b";
+        ingestService.ingest(postNummer, placesPage(base + "-a1", "3.0", base + "-a2", "4.0"));
+        ingestService.ingest(other, placesPage(base + "-b1", "2.0"));
+        catalog.invalidate();
+        rankingCache.clear();
+
+        List<RestaurantDto> first = restaurantService.sortRestaurants(postNummer, "distance", 55.68012, 12.57013, null, null, 0);
+        long hits = (Long) rankingCache.stats().get("hits");
+        // Same ~100 m cell: served from the cache
+        List<RestaurantDto> second = restaurantService.sortRestaurants(postNummer, "distance", 55.68031, 12.57044, null, null, 0);
+        assertEquals(first, second);
+        assertEquals(hits + 1, (Long) rankingCache.stats().get("hits"));
+
+        restaurantService.sortRestaurants(other, "rating", null, null, null, null, 0);
+        List<RestaurantDto> otherBefore = restaurantService.sortRestaurants(other, "rating", null, null, null, null, 0);
+
+        // A write to postNummer drops its entries only
+        googleRoutes.put(GEOCODE_PATH, exchange -> respond(exchange, 200, """
+                {"status": "OK", "results": [{"geometry": {"location": {"lat": 55.68, "lng": 12.57}}}]}
+                """));
+        googleRoutes.put(NEARBY_PATH, exchange -> respond(exchange, 200, placesJson("OK", null, base + "-a3")));
+        restaurantService.fetchAndSaveRestaurants(postNummer);
+
+        List<RestaurantDto> third = restaurantService.sortRestaurants(postNummer, "distance", 55.68031, 12.57044, null, null, 0);
+        assertEquals(3, third.size());
+        hits = (Long) rankingCache.stats().get("hits");
+        assertEquals(otherBefore, restaurantService.sortRestaurants(other, "rating", null, null, null, null, 0));
+        assertEquals(hits + 1, (Long) rankingCache.stats().get("hits"));
+    }
+
+    @Test
+    void testHotPathIsTimed() throws Exception {
+        String postNummer = "metric" + System.nanoTime();
+        ingestService.ingest(postNummer, placesPage(postNummer + "-a", "3.0", postNummer + "-b", "4.0"));
+        catalog.invalidate();
+        rankingCache.clear();
+
+        restaurantService.sortRestaurants(postNummer, "rating", null, null, null, null, 0);
+
+        assertTrue(meterRegistry.get(RestaurantMetrics.RANKING)
+                .tags("method", "rating", "size", "100").timer().count() >= 1);
+        assertTrue(meterRegistry.get(RestaurantMetrics.DB_QUERY)
+                .tag("query", "findByPostNummer").timer().count() >= 1);
+
+        googleRoutes.put(NEARBY_PATH, exchange -> respond(exchange, 200, placesJson("OK", null)));
+        googleMaps.nearbySearch(55.68, 12.57, 2000).join();
+        assertTrue(meterRegistry.get(RestaurantMetrics.GOOGLE_REQUEST)
+                .tags("api", "nearby", "outcome", "OK").timer().count() >= 1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> restaurantService.sortRestaurants(postNummer, "bogus", null, null, null, null, 0));
+        assertNull(meterRegistry.find(RestaurantMetrics.RANKING).tag("method", "bogus").timer());
+    }
+
+    @Test
+    void testDistanceKernelMatchesScalarFastDistance() {
+        java.util.Random random = new java.util.Random(19);
+        // Odd length so the vector loop leaves a scalar tail
+        int n = 1003;
+        double[] lat = new double[n];
+        double[] lng = new double[n];
+        for (int i = 0; i < n; i++) {
+            lat[i] = 55.6 + random.nextDouble() * 0.2;
+            lng[i] = 12.4 + random.nextDouble() * 0.3;
+        }
+
+        assertTrue(DistanceKernel.isVectorised());
+        double[] batch = DistanceKernel.squaredDistances(lat, lng, 55.68, 12.57);
+        double[] scalar = new double[n];
+        DistanceKernel.scalarSquaredDistances(lat, lng, 55.68, 12.57, scalar);
+
+        for (int i = 0; i < n; i++) {
+            assertEquals(AlgorithmPipeline.fastDistance(lat[i], lng[i], 55.68, 12.57), batch[i], 0.0);
+            assertEquals(scalar[i], batch[i], 0.0);
+        }
+    }
+
+    @Test
+    void testEquirectangularMatchesHaversineAndScalesLongitude() {
+        java.util.Random random = new java.util.Random(20);
+        for (int i = 0; i < 1000; i++) {
+            double lat = 55.6 + random.nextDouble() * 0.2;
+            double lng = 12.4 + random.nextDouble() * 0.3;
+            double exact = AlgorithmPipeline.haversine(lat, lng, 55.68, 12.57);
+            double approx = AlgorithmPipeline.equirectangularMeters(lat, lng, 55.68, 12.57);
+            assertEquals(exact, approx, exact * 0.001 + 0.01);
+        }
+
+        // 0.010 deg east (~630 m) is nearer than 0.008 deg north (~890 m) in Copenhagen
+        List<RestaurantDto> input = List.of(
+                new RestaurantDto("North", "x", 4.0, 55.688, 12.57, 2, "2400"),
+                new RestaurantDto("East", "x", 4.0, 55.68, 12.58, 2, "2400"));
+        assertEquals("East", AlgorithmPipeline.MergeSort.sort(input,
+                AlgorithmPipeline.RestaurantComparators.byDistance(55.68, 12.57)).get(0).getName());
+        assertEquals("East", AlgorithmPipeline.kNearest(input, 55.68, 12.57, 1).get(0).getName());
+
+        RestaurantSnapshot snapshot = RestaurantSnapshot.of(input);
+        assertEquals("East", AlgorithmPipeline.topByKey(snapshot,
+                AlgorithmPipeline.RowKeys.byDistance(snapshot, 55.68, 12.57), 0, 1).get(0).getName());
+    }
+
+    @Test
+    void testRadixSortMatchesComparisonSort() {
+        java.util.Random random = new java.util.Random(21);
+        List<RestaurantDto> input = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            // Mostly one-decimal ratings, plus a few off-grid and out-of-range values and missing prices
+            double rating = i % 97 == 0 ? random.nextDouble() * 7 - 1 : Math.round(random.nextDouble() * 50) / 10.0;
+            Integer price = i % 13 == 0 ? null : random.nextInt(5);
+            input.add(new RestaurantDto((long) i, "R" + i, "x", rating, 55.68, 12.57, price, "2400"));
+        }
+        RestaurantSnapshot snapshot = RestaurantSnapshot.of(input);
+
+        assertArrayEquals(AlgorithmPipeline.MergeSort.sortByKey(AlgorithmPipeline.RowKeys.byRating(snapshot)),
+                AlgorithmPipeline.RadixSort.byRating(snapshot));
+        assertArrayEquals(AlgorithmPipeline.MergeSort.sortByKey(AlgorithmPipeline.RowKeys.byPrice(snapshot)),
+                AlgorithmPipeline.RadixSort.byPrice(snapshot));
+
+        int[] expected = AlgorithmPipeline.MergeSort.sortRows(snapshot.size(), (a, b) -> {
+            int byPrice = Integer.compare(snapshot.priceLevel(a), snapshot.priceLevel(b));
+            return byPrice != 0 ? byPrice : Float.compare(snapshot.rating(b), snapshot.rating(a));
+        });
+        assertArrayEquals(expected, AlgorithmPipeline.RadixSort.byPriceThenRating(snapshot));
+    }
+
+    @Test
+    void testCompactRestaurantRoundTripAndFootprint() {
+        java.util.Random random = new java.util.Random(22);
+        String[] postcodes = {"2400", "2200", "1050", "8000", "5000"};
+        List<RestaurantDto> dtos = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            // As read from the database: ids outside the Long cache and one String per postNummer per row
+            double lat = Math.round((55 + random.nextDouble()) * 1e7) / 1e7;
+            double lng = Math.round((12 + random.nextDouble()) * 1e7) / 1e7;
+            double rating = Math.round(random.nextDouble() * 50) / 10.0;
+            // -1 is how ingest stores a place without a price level
+            Integer price = i % 7 == 0 ? -1 : random.nextInt(5);
+            dtos.add(new RestaurantDto(1000L + i, "Restaurant " + i, "Vej " + i, rating, lat, lng, price,
+                    new String(postcodes[i % postcodes.length])));
+        }
+
+        PostNummerDictionary dictionary = new PostNummerDictionary();
+        List<CompactRestaurant> compact = new ArrayList<>();
+        for (RestaurantDto dto : dtos) compact.add(CompactRestaurant.of(dto, dictionary));
+
+        // Google's 7 decimals and one-decimal ratings survive the fixed-point encoding
+        for (int i = 0; i < dtos.size(); i++) {
+            assertEquals(dtos.get(i), compact.get(i).toDto());
+        }
+        assertEquals(postcodes.length, dictionary.size());
+        assertSame(compact.get(0).postNummer(), compact.get(postcodes.length).postNummer());
+
+        long dtoBytes = GraphLayout.parseInstance(dtos).totalSize();
+        long compactBytes = GraphLayout.parseInstance(compact).totalSize();
+        System.out.printf("Bytes per restaurant: RestaurantDto %.1f, CompactRestaurant %.1f (incl. name and address)%n",
+                (double) dtoBytes / dtos.size(), (double) compactBytes / compact.size());
+        assertTrue(compactBytes < dtoBytes);
+    }
+
+    @Test
+    void testCompactRestaurantTreatsNegativePriceAsNoPrice() throws Exception {
+        // A place without price_level is stored with -1
+        String postNummer = "noprice" + System.nanoTime();
+        List<JsonNode> page = List.of(new ObjectMapper().readTree("""
+                {"place_id": "%s-a", "name": "No price", "vicinity": "Street 1", "rating": 4.0,
+                 "geometry": {"location": {"lat": 55.68, "lng": 12.57}}}
+                """.formatted(postNummer)));
+        ingestService.ingest(postNummer, page);
+        RestaurantEntity stored = restaurantRepo.findByPlaceIdIn(List.of(postNummer + "-a")).get(0);
+        assertEquals(-1, stored.getPriceLevel());
+
+        PostNummerDictionary dictionary = new PostNummerDictionary();
+        CompactRestaurant fromEntity = CompactRestaurant.of(stored, dictionary);
+        assertEquals(CompactRestaurant.NO_PRICE, fromEntity.priceLevel());
+        assertEquals(-1, fromEntity.toDto().getPriceLevel());
+
+        RestaurantDto dto = restaurantRepo.findDtosByPostNummer(postNummer).get(0);
+        assertEquals(CompactRestaurant.NO_PRICE, CompactRestaurant.of(dto, dictionary).priceLevel());
+        assertThrows(IllegalArgumentException.class, () -> CompactRestaurant.toPrice(200));
+    }
+
+    @Test
+    void testCatalogSnapshotFileWarmStart() throws Exception {
+        String postNummer = "snap" + System.nanoTime();
+        ingestService.ingest(postNummer, placesPage(postNummer + "-a", "3.5", postNummer + "-b", "4.5"));
+        catalog.invalidate();
+
+        assertTrue(snapshotStore.write());
+        SnapshotFile.Header header = SnapshotFile.readHeader(snapshotStore.getPath());
+        assertEquals(restaurantRepo.count(), header.rows());
+        assertEquals(restaurantRepo.findMaxId(), header.maxId());
+        assertEquals(catalogVersion.current(), header.catalogVersion());
+        List<RestaurantDto> expected = catalog.global().toDtos();
+
+        // Simulated restart: the catalog comes back from the file, without querying H2
+        catalog.invalidate();
+        double loads = meterRegistry.get(RestaurantMetrics.DB_QUERY).tag("query", "findAllDtos").timer().count();
+        assertTrue(snapshotStore.load());
+        assertEquals(expected, catalog.global().toDtos());
+        assertEquals(List.of("Place " + postNummer + "-a", "Place " + postNummer + "-b"),
+                catalog.forPostNummer(postNummer).toDtos().stream().map(RestaurantDto::getName).toList());
+        assertEquals(loads, meterRegistry.get(RestaurantMetrics.DB_QUERY).tag("query", "findAllDtos").timer().count());
+        // Nothing keeps the loaded file open or mapped: it can be replaced right away
+        assertTrue(snapshotStore.write());
+
+        // An update in place (same row count and max id) makes it stale
+        ingestService.ingest(postNummer, placesPage(postNummer + "-a", "4.0"));
+        catalog.invalidate();
+        assertEquals(header.rows(), restaurantRepo.count());
+        assertEquals(header.maxId(), restaurantRepo.findMaxId());
+        assertFalse(snapshotStore.load());
+        assertEquals(4.0, catalog.forPostNummer(postNummer).toDtos().get(0).getRating());
+
+        // So do rows written after the file
+        assertTrue(snapshotStore.write());
+        ingestService.ingest(postNummer, placesPage(postNummer + "-c", "2.0"));
+        catalog.invalidate();
+        assertFalse(snapshotStore.load());
+        assertEquals(3, catalog.forPostNummer(postNummer).size());
+    }
+
+    @Test
+    void testRefresherUpdatesStalestPostcodeWithinBudget() {
+        String base = "fresh" + System.nanoTime();
+        String stalest = base + "a";
+        String stale = base + "b";
+        java.util.concurrent.atomic.AtomicReference<String> nearby = new java.util.concurrent.atomic.AtomicReference<>();
+        googleRoutes.put(GEOCODE_PATH, exchange -> respond(exchange, 200, """
+                {"status": "OK", "results": [{"geometry": {"location": {"lat": 55.68, "lng": 12.57}}}]}
+                """));
+        googleRoutes.put(NEARBY_PATH, exchange -> respond(exchange, 200, nearby.get()));
+        String place = """
+                {"place_id": "%s", "name": "Refreshed", "vicinity": "Street 1", "rating": %s,
+                 "geometry": {"location": {"lat": 55.68, "lng": 12.57}}}
+                """;
+
+        nearby.set("{\"status\": \"OK\", \"results\": [" + place.formatted(stalest + "-1", "3.0") + ","
+                + place.formatted(stalest + "-2", "4.0") + "]}");
+        restaurantService.fetchAndSaveRestaurants(stalest);
+        nearby.set("{\"status\": \"OK\", \"results\": [" + place.formatted(stale + "-1", "3.0") + "]}");
+        restaurantService.fetchAndSaveRestaurants(stale);
+
+        // Everything else was just fetched; the two test postcodes are one and two days old
+        Instant now = Instant.now();
+        List<PostcodeFetchEntity> log = new ArrayList<>(fetchLog.findAll());
+        fetchLog.findUntracked().forEach(p -> log.add(PostcodeFetchEntity.builder().postNummer(p).build()));
+        for (PostcodeFetchEntity entry : log) {
+            entry.setAttemptedAt(entry.getPostNummer().equals(stalest) ? now.minus(Duration.ofDays(3))
+                    : entry.getPostNummer().equals(stale) ? now.minus(Duration.ofDays(2)) : now);
+        }
+        fetchLog.saveAll(log);
+
+        // One rating changed, one row unchanged, one new place
+        nearby.set("{\"status\": \"OK\", \"results\": [" + place.formatted(stalest + "-1", "3.5") + ","
+                + place.formatted(stalest + "-2", "4.0") + "," + place.formatted(stalest + "-3", "5.0") + "]}");
+        PostcodeRefresher.Run run = refresher.refreshStale();
+
+        // Budget of one postcode per run: only the stalest is fetched
+        assertEquals(new PostcodeRefresher.Run(1, 1, 0, 1), run);
+        assertEquals(3.5, restaurantRepo.findByPlaceIdIn(List.of(stalest + "-1")).get(0).getRating());
+        assertEquals(3, restaurantService.getRestaurantsByPostNummer(stalest).size());
+        assertTrue(fetchLog.findById(stalest).orElseThrow().getFetchedAt().isAfter(now.minusSeconds(60)));
+        assertTrue(fetchLog.findById(stale).orElseThrow().getAttemptedAt().isBefore(now.minus(Duration.ofDays(1))));
+    }
+
+    @Test
+    void testPendingOverlayStopsRetryingUnderSteadyCommits() {
+        PendingRestaurants rows = new PendingRestaurants();
+        RestaurantDto stored = new RestaurantDto(1L, "Old", "Street 1", 3.0, 55.68, 12.57, 2, "2100");
+        int[] queries = {0};
+        // Every query overlaps a commit (an id assigned), and a steady stream of submits arrives
+        List<RestaurantDto> merged = rows.overlay(() -> {
+            queries[0]++;
+            PendingRestaurants.Row row = new PendingRestaurants.Row("p" + queries[0], null,
+                    new RestaurantDto(null, "New", "Street 2", 4.0, 55.68, 12.57, 2, "2100"));
+            rows.put(row);
+            rows.assignId(row, 100L + queries[0]);
+            return List.of(stored);
+        }, "2100"::equals);
+
+        // A few optimistic attempts, then one query with commits held off
+        assertEquals(PendingRestaurants.OPTIMISTIC_ATTEMPTS + 1, queries[0]);
+        assertEquals(1 + queries[0], merged.size());
+
+        // Submits alone do not make a reader query again
+        queries[0] = 0;
+        rows.overlay(() -> {
+            queries[0]++;
+            rows.put(new PendingRestaurants.Row("q" + queries[0], null,
+                    new RestaurantDto(null, "New", "Street 2", 4.0, 55.68, 12.57, 2, "2100")));
+            return List.of(stored);
+        }, "2100"::equals);
+        assertEquals(1, queries[0]);
+    }
+
+    // ---------------------------
+    // Write-behind on: its own context, started with ingest.write-behind.enabled=true
+    // ---------------------------
+    @Nested
+    @TestPropertySource(properties = "ingest.write-behind.enabled=true")
+    class WriteBehindEnabled {
+
+        @Autowired
+        RestaurantService restaurantService;
+
+        @Autowired
+        RestaurantIngestService ingestService;
+
+        @Autowired
+        RestaurantCatalog catalog;
+
+        @Autowired
+        RestaurantRepo restaurantRepo;
+
+        @Autowired
+        WriteBehindBuffer writeBehind;
+
+        @Test
+        void testWriteBehindRowsAreVisibleBeforeTheyAreWritten() throws Exception {
+            String postNummer = "behind" + System.nanoTime();
+            ingestService.ingest(postNummer, placesPage(postNummer + "-a", "3.0"));
+            catalog.invalidate();
+            googleRoutes.put(GEOCODE_PATH, exchange -> respond(exchange, 200, """
+                    {"status": "OK", "results": [{"geometry": {"location": {"lat": 55.68, "lng": 12.57}}}]}
+                    """));
+            // -a comes back changed (rating 4.0), -b is new
+            googleRoutes.put(NEARBY_PATH, exchange -> respond(exchange, 200,
+                    placesJson("OK", null, postNummer + "-a", postNummer + "-b")));
+
+            List<RestaurantDto> inserted = restaurantService.fetchAndSaveRestaurants(postNummer);
+            assertEquals(1, inserted.size());
+
+            // Whether or not the writer has run yet: the update in place, the new row once
+            List<RestaurantDto> visible = restaurantService.getRestaurantsByPostNummer(postNummer);
+            assertEquals(2, visible.size());
+            assertTrue(visible.stream().allMatch(r -> r.getRating() == 4.0));
+
+            assertTrue(writeBehind.awaitDrained(Duration.ofSeconds(10)));
+            assertEquals(2, restaurantRepo.findDtosByPostNummer(postNummer).size());
+            assertEquals(4.0, restaurantRepo.findByPlaceIdIn(List.of(postNummer + "-a")).get(0).getRating());
+            List<RestaurantDto> written = restaurantService.getRestaurantsByPostNummer(postNummer);
+            assertEquals(2, written.size());
+            assertTrue(written.stream().allMatch(r -> r.getId() != null));
+        }
+
+        @Test
+        void testWriteBehindRetriesFailedRowsOneByOne() throws Exception {
+            String postNummer = "retry" + System.nanoTime();
+            googleRoutes.put(GEOCODE_PATH, exchange -> respond(exchange, 200, """
+                    {"status": "OK", "results": [{"geometry": {"location": {"lat": 55.68, "lng": 12.57}}}]}
+                    """));
+            // The second place cannot be stored (name longer than the column), the first can
+            String tooLong = "x".repeat(300);
+            googleRoutes.put(NEARBY_PATH, exchange -> respond(exchange, 200, """
+                    {"status": "OK", "results": [
+                      {"place_id": "%s-ok", "name": "Fine", "vicinity": "Street 1", "rating": 4.0,
+                       "geometry": {"location": {"lat": 55.68, "lng": 12.57}}},
+                      {"place_id": "%s-bad", "name": "%s", "vicinity": "Street 1", "rating": 4.0,
+                       "geometry": {"location": {"lat": 55.68, "lng": 12.57}}}]}
+                    """.formatted(postNummer, postNummer, tooLong)));
+
+            long dropped = (Long) writeBehind.stats().get("dropped");
+            assertEquals(2, restaurantService.fetchAndSaveRestaurants(postNummer).size());
+            assertEquals(2, restaurantService.getRestaurantsByPostNummer(postNummer).size());
+
+            // The good row is written on its first retry; the bad one is dropped after the last attempt
+            assertTrue(writeBehind.awaitDrained(Duration.ofSeconds(30)));
+            List<RestaurantDto> stored = restaurantRepo.findDtosByPostNummer(postNummer);
+            assertEquals(List.of("Fine"), stored.stream().map(RestaurantDto::getName).toList());
+            assertEquals(dropped + 1, (Long) writeBehind.stats().get("dropped"));
+            assertEquals(1, restaurantService.getRestaurantsByPostNummer(postNummer).size());
+        }
+    }
+
+    // ---------------------------
+    // Admin bulk ingest switched on, with a token
+    // ---------------------------
+    @Nested
+    @TestPropertySource(properties = {"admin.ingest.enabled=true", "admin.ingest.token=s3cret"})
+    class AdminIngestEnabled {
+
+        @Autowired
+        MockMvc mockMvc;
+
+        @Test
+        void testAdminIngestRequiresTheToken() throws Exception {
+            // Too much concurrency: rejected before any Google call is made
+            String body = "{\"postNummers\": [\"2100\"], \"concurrency\": 100}";
+            mockMvc.perform(post("/api/admin/ingest").contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isForbidden());
+            mockMvc.perform(post("/api/admin/ingest").header("X-Admin-Token", "wrong")
+                            .contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isForbidden());
+            mockMvc.perform(post("/api/admin/ingest").header("X-Admin-Token", "s3cret")
+                            .contentType(MediaType.APPLICATION_JSON).content(body))
+                    .andExpect(status().isBadRequest());
+
+            mockMvc.perform(get("/api/admin/ingest/unknown")).andExpect(status().isForbidden());
+            mockMvc.perform(get("/api/admin/ingest/unknown").header("X-Admin-Token", "s3cret"))
+                    .andExpect(status().isNotFound());
+        }
+    }
 }